@@ -39,6 +39,8 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:5.9.2")
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.9.2")
     testImplementation("com.github.kstyrc:embedded-redis:0.6")
+    testImplementation("com.h2database:h2:2.2.224")
+    testImplementation("de.bwaldvogel:mongo-java-server:1.44.0")
 }
 
 tasks {
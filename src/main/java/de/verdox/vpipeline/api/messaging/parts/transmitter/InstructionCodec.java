@@ -0,0 +1,65 @@
+package de.verdox.vpipeline.api.messaging.parts.transmitter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import de.verdox.vpipeline.api.messaging.instruction.Instruction;
+import de.verdox.vpipeline.api.util.WireFormat;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Encodes {@link Instruction}s for messaging channels.
+ * <p>
+ * The binary format writes the instruction id as varint followed by the length prefixed json of the instruction.
+ * The legacy format is the json envelope {"id": ..., "data": ...} that older nodes publish and expect.
+ */
+public class InstructionCodec {
+    private final Gson gson;
+
+    public InstructionCodec(@NotNull Gson gson) {
+        this.gson = Objects.requireNonNull(gson, "gson can't be null!");
+    }
+
+    public byte[] encode(@NotNull Instruction<?> instruction) {
+        Objects.requireNonNull(instruction, "instruction can't be null!");
+        if (WireFormat.outgoingVersion() == WireFormat.LEGACY_JSON) {
+            var object = new JsonObject();
+            object.add("id", new JsonPrimitive(instruction.getInstructionID()));
+            object.add("data", gson.toJsonTree(instruction));
+            return gson.toJson(object).getBytes(StandardCharsets.UTF_8);
+        }
+        String data = gson.toJson(instruction);
+        return new WireFormat.Writer(data.length() + 8)
+                .writeByte(WireFormat.BINARY)
+                .writeVarLong(instruction.getInstructionID())
+                .writeString(data)
+                .toByteArray();
+    }
+
+    /**
+     * Decodes the instruction id and the json of the instruction. The instruction type is resolved by the caller.
+     */
+    public EncodedInstruction decode(@NotNull byte[] message) {
+        Objects.requireNonNull(message, "message can't be null!");
+        if (message.length == 0)
+            throw new IllegalArgumentException("Empty instruction message");
+        if (message[0] == '{') {
+            JsonElement element = JsonParser.parseString(new String(message, StandardCharsets.UTF_8));
+            return new EncodedInstruction(element.getAsJsonObject().get("id").getAsInt(), element.getAsJsonObject().get("data").toString());
+        }
+        if (message[0] != WireFormat.BINARY)
+            throw new IllegalArgumentException("Unsupported wire format version " + message[0]);
+        WireFormat.Reader reader = new WireFormat.Reader(message);
+        reader.readByte();
+        int instructionID = (int) reader.readVarLong();
+        return new EncodedInstruction(instructionID, reader.readString());
+    }
+
+    public record EncodedInstruction(int instructionID, String data) {
+    }
+}
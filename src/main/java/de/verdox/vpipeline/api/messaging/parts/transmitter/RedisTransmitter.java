@@ -8,10 +8,14 @@ import de.verdox.vpipeline.api.NetworkLogger;
 import de.verdox.vpipeline.api.messaging.MessagingService;
 import de.verdox.vpipeline.api.messaging.Transmitter;
 import de.verdox.vpipeline.api.messaging.instruction.Instruction;
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
+import de.verdox.vpipeline.api.util.PayloadCompression;
 import de.verdox.vpipeline.impl.util.RedisConnection;
+import de.verdox.vpipeline.impl.util.WireFormatNegotiator;
+import org.jetbrains.annotations.Nullable;
 import org.redisson.api.RTopic;
 import org.redisson.api.listener.MessageListener;
-import org.redisson.client.codec.StringCodec;
+import org.redisson.client.codec.ByteArrayCodec;
 
 import java.util.Objects;
 import java.util.UUID;
@@ -25,12 +29,14 @@ public class RedisTransmitter implements Transmitter {
             .build();
 
     private RTopic globalMessagingChannel;
-    private MessageListener<String> listener;
+    private MessageListener<byte[]> listener;
     private final RedisConnection redisConnection;
     private MessagingService messagingService;
     private RTopic privateMessagingChannel;
+    private WireFormatNegotiator wireFormatNegotiator;
 
     private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private final InstructionCodec instructionCodec = new InstructionCodec(gson);
 
     public RedisTransmitter(RedisConnection redisConnection) {
         this.redisConnection = redisConnection;
@@ -84,20 +90,23 @@ public class RedisTransmitter implements Transmitter {
 
     @Override
     public void shutdown() {
-        redisConnection.getRedissonClient().shutdown();
         globalMessagingChannel.removeListener(listener);
         privateMessagingChannel.removeListener(listener);
+        redisConnection.disconnect();
     }
 
     private RTopic getPrivateMessagingChannel(UUID uuid) {
-        return redisConnection.getRedissonClient().getTopic("PrivateMessagingChannel_" + uuid, new StringCodec());
+        return redisConnection.getRedissonClient().getTopic("PrivateMessagingChannel_" + uuid, ByteArrayCodec.INSTANCE);
     }
 
     private long publish(RTopic rTopic, Instruction<?> instruction) {
-        var object = new JsonObject();
-        object.add("id", new JsonPrimitive(instruction.getInstructionID()));
-        object.add("data", gson.toJsonTree(instruction));
-        return rTopic.publish(gson.toJson(object));
+        return rTopic.publish(PayloadCompression.compress(instructionCodec.encode(instruction), getMetrics()));
+    }
+
+    @Nullable
+    private PipelineMetrics getMetrics() {
+        var pipeline = messagingService.getNetworkParticipant().pipeline();
+        return pipeline != null ? pipeline.getMetrics() : null;
     }
 
     public RedisConnection getRedisConnection() {
@@ -107,16 +116,23 @@ public class RedisTransmitter implements Transmitter {
     @Override
     public void connect() {
         getRedisConnection().connect();
+        if (wireFormatNegotiator == null) {
+            wireFormatNegotiator = new WireFormatNegotiator(redisConnection.getRedissonClient());
+            wireFormatNegotiator.start();
+        }
 
-        globalMessagingChannel = redisConnection.getRedissonClient().getTopic("GlobalMessagingChannel", new StringCodec());
-        this.listener = (channel, msgString) -> {
-            //TODO: Den richtigen Typ hernehmen nach ID zum deserializen
-            //TODO: Die Id mitsenden?
-            var element = JsonParser.parseString(msgString);
-
+        globalMessagingChannel = redisConnection.getRedissonClient().getTopic("GlobalMessagingChannel", ByteArrayCodec.INSTANCE);
+        this.listener = (channel, message) -> {
+            InstructionCodec.EncodedInstruction encodedInstruction;
+            try {
+                encodedInstruction = instructionCodec.decode(PayloadCompression.decompress(message));
+            } catch (RuntimeException e) {
+                NetworkLogger.warning("[" + messagingService.getSessionIdentifier() + "] Could not decode message: " + e.getMessage());
+                return;
+            }
 
-            var instructionID = element.getAsJsonObject().get("id").getAsJsonPrimitive().getAsInt();
-            var data = element.getAsJsonObject().get("data");
+            var instructionID = encodedInstruction.instructionID();
+            var data = encodedInstruction.data();
             var type = messagingService.getMessageFactory().getCachedInstructionData(instructionID);
             if (type == null) {
                 if (NetworkLogger.transmitterDebugMode.isDebugMode())
@@ -138,17 +154,21 @@ public class RedisTransmitter implements Transmitter {
                 e.printStackTrace();
             }
         };
-        globalMessagingChannel.addListener(String.class, listener);
+        globalMessagingChannel.addListener(byte[].class, listener);
         NetworkLogger.info("Redis Transmitter connected");
 
         privateMessagingChannel = getPrivateMessagingChannel(messagingService.getSessionUUID());
-        privateMessagingChannel.addListener(String.class, listener);
+        privateMessagingChannel.addListener(byte[].class, listener);
 
         NetworkLogger.info("[" + messagingService.getSessionIdentifier() + "] Private Channel: " + "PrivateMessagingChannel_" + messagingService.getSessionUUID());
     }
 
     @Override
     public void disconnect() {
+        if (wireFormatNegotiator != null) {
+            wireFormatNegotiator.stop();
+            wireFormatNegotiator = null;
+        }
         getRedisConnection().disconnect();
     }
 }
@@ -22,5 +22,28 @@ public @interface PipelineDataProperties {
 
     TimeUnit timeUnit() default TimeUnit.MINUTES;
 
+    /**
+     * The minimum time in milliseconds between two ttl refreshes of a cleanOnNoUse object in the global cache caused by reads.
+     * With 0 every read refreshes the ttl.
+     */
+    long touchIntervalMillis() default 0L;
+
     boolean debugMode() default false;
+
+    /**
+     * If enabled, network updates only contain the fields that changed since the last update.
+     * Every object keeps a copy of its last network state for this.
+     */
+    boolean deltaSync() default true;
+
+    /**
+     * If enabled, writes to the global storage are deferred and coalesced per object.
+     * The global cache and the network synchronization are still updated immediately.
+     */
+    boolean writeBehind() default false;
+
+    /**
+     * The maximum time in milliseconds a deferred write waits before it is flushed to the global storage
+     */
+    long writeBehindMillis() default 1000L;
 }
@@ -5,14 +5,24 @@ import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
 import de.verdox.vpipeline.api.pipeline.datatypes.SynchronizingService;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalCache;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalStorage;
+import de.verdox.vpipeline.api.pipeline.parts.LocalCache;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 /**
  * Used to build a pipeline
  */
 public interface PipelineBuilder {
+    /**
+     * Used to specify the {@link LocalCache} that should be used
+     *
+     * @param localCache the local cache
+     * @return the builder
+     */
+    PipelineBuilder withLocalCache(@NotNull LocalCache localCache);
+
     /**
      * Used to specify the {@link GlobalCache} that should be used
      *
@@ -45,6 +55,15 @@ public interface PipelineBuilder {
      */
     PipelineBuilder withNetworkDataLockingService(@NotNull NetworkDataLockingService networkDataLockingService);
 
+    /**
+     * Used to specify the {@link Executor} that runs the operations of {@link de.verdox.vpipeline.api.pipeline.core.AsyncPipeline}.
+     * If no executor is specified a virtual thread per task executor is used.
+     *
+     * @param executor the executor
+     * @return the builder
+     */
+    PipelineBuilder withAsyncExecutor(@NotNull Executor executor);
+
     /**
      * Used to specify any gson parser settings that are applied for serialization purposes
      *
@@ -0,0 +1,84 @@
+package de.verdox.vpipeline.api.pipeline.core;
+
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.LocalCache;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A non-blocking view of a {@link Pipeline}.
+ * <p>
+ * Every operation is run on the async executor of the pipeline and takes the same network locks as its synchronous variant,
+ * also if the data is already in the {@link LocalCache}.
+ * Invalid arguments are not thrown but complete the returned future exceptionally.
+ */
+public interface AsyncPipeline {
+
+    /**
+     * Returns the pipeline this view operates on
+     * @return the pipeline
+     */
+    @NotNull Pipeline getPipeline();
+
+    /**
+     * Asynchronous variant of {@link Pipeline#load(Class, UUID)}.
+     * @param type The data class
+     * @param uuid the uuid of the data
+     * @return a future completed with the data access object, or with null if the data does not exist in the pipeline
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> CompletableFuture<DataAccess<T>> loadAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid);
+
+    /**
+     * Asynchronous variant of {@link Pipeline#loadOrCreate(Class, UUID, Consumer)}.
+     * @param type The data class
+     * @param uuid the uuid of the data
+     * @param immediateWriteOperation An immediate write operation that is run after the object creation
+     * @return a future completed with the data access object
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> CompletableFuture<DataAccess<T>> loadOrCreateAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid, @Nullable Consumer<T> immediateWriteOperation);
+
+    /**
+     * Asynchronous variant of {@link Pipeline#loadOrCreate(Class, UUID)}.
+     * @param type The data class
+     * @param uuid the uuid of the data
+     * @return a future completed with the data access object
+     * @param <T> the generic data type
+     */
+    default @NotNull <T extends IPipelineData> CompletableFuture<DataAccess<T>> loadOrCreateAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid) {
+        return loadOrCreateAsync(type, uuid, null);
+    }
+
+    /**
+     * Asynchronous variant of {@link Pipeline#exist(Class, UUID)}.
+     * @param type The data class
+     * @param uuid the uuid of the data
+     * @return a future completed with true if the data exists anywhere in the pipeline
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> CompletableFuture<Boolean> existAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid);
+
+    /**
+     * Asynchronous variant of {@link Pipeline#delete(Class, UUID)}.
+     * @param type The data class
+     * @param uuid the uuid of the data
+     * @return a future completed with true if the operation was successful
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> CompletableFuture<Boolean> deleteAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid);
+
+    /**
+     * Asynchronous variant of {@link Pipeline#saveAndRemoveFromLocalCache(Class, UUID)}.
+     * @param type The data class
+     * @param uuid the uuid of the data
+     * @return a future completed with true if the operation was successful
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> CompletableFuture<Boolean> saveAndRemoveAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid);
+}
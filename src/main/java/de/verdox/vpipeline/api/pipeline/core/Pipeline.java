@@ -15,11 +15,13 @@ import de.verdox.vpipeline.api.pipeline.parts.LocalCache;
 import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataSubscriber;
-import de.verdox.vpipeline.api.pipeline.parts.cache.local.HashedLocalCache;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.ConcurrentLocalCache;
 import de.verdox.vpipeline.impl.pipeline.core.PipelineImpl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
@@ -32,7 +34,7 @@ public interface Pipeline extends SystemPart, Connection {
                     new SerializableField<>("networkLock", NetworkDataLockingService.SERIALIZER, Pipeline::getNetworkDataLockingService),
                     new SerializableField<>("synchronizingService", SynchronizingService.SERIALIZER, Pipeline::getSynchronizingService),
                     (globalCache, globalStorage, networkDataLockingService, synchronizingService) ->
-                            new PipelineImpl(new HashedLocalCache(), networkDataLockingService, globalCache, globalStorage, synchronizingService, GsonBuilder::setPrettyPrinting)
+                            new PipelineImpl(new ConcurrentLocalCache(), networkDataLockingService, globalCache, globalStorage, synchronizingService, GsonBuilder::setPrettyPrinting)
             )
             .build();
 
@@ -117,6 +119,18 @@ public interface Pipeline extends SystemPart, Connection {
      */
     @NotNull DataRegistry getDataRegistry();
 
+    /**
+     * Returns the non-blocking view of this pipeline. Its operations run on the async executor of the pipeline.
+     * @return the async pipeline
+     */
+    @NotNull AsyncPipeline async();
+
+    /**
+     * Returns the {@link PipelineMetrics} of this pipeline
+     * @return the metrics
+     */
+    @NotNull PipelineMetrics getMetrics();
+
     /**
      * Returns the {@link GsonBuilder}
      * @return the gson builder
@@ -171,6 +185,28 @@ public interface Pipeline extends SystemPart, Connection {
     }
 
 
+    /**
+     * Used to load multiple {@link IPipelineData} objects of the same type into the {@link LocalCache} of the {@link Pipeline}.
+     * Objects that are missing in the local cache are fetched from the {@link GlobalCache} and {@link GlobalStorage} in batches instead of one request per object.
+     * The network read locks of all objects are held while they are fetched, like {@link #load(Class, UUID)} does for one object.
+     * @param type The data class
+     * @param uuids the uuids of the data
+     * @return the data access objects of all data that was found anywhere in the pipeline mapped by their uuid
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> Map<UUID, DataAccess<T>> loadMany(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids);
+
+    /**
+     * Used to load multiple {@link IPipelineData} objects of the same type into the {@link LocalCache} of the {@link Pipeline}.
+     * Objects that were not found anywhere in the pipeline are created and written to the {@link GlobalCache} and {@link GlobalStorage} in batches.
+     * @param type The data class
+     * @param uuids the uuids of the data
+     * @return the data access objects mapped by their uuid
+     * @param <T> the generic data type
+     */
+    @NotNull <T extends IPipelineData> Map<UUID, DataAccess<T>> loadOrCreateMany(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids);
+
+
     /**
      * Used to load all objects of {@link IPipelineData} into the {@link LocalCache} of the {@link Pipeline} or create the data if it was not found anywhere in the pipeline.
      * When the {@link IPipelineData} was loaded successfully a {@link DataAccess} object is created that can be used
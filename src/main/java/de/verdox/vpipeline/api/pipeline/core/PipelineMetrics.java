@@ -0,0 +1,133 @@
+package de.verdox.vpipeline.api.pipeline.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters that describe the work a {@link Pipeline} did since it was started.
+ */
+public class PipelineMetrics {
+    private final LongAdder performedSyncs = new LongAdder();
+    private final LongAdder skippedSyncs = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final LongAdder encodedPayloadBytes = new LongAdder();
+    private final LongAdder compressedPayloads = new LongAdder();
+    private final LongAdder staleDataBlocks = new LongAdder();
+    private final LongAdder queuedDataBlocks = new LongAdder();
+    private final LongAdder backpressuredDataBlocks = new LongAdder();
+
+    public void recordPerformedSync() {
+        performedSyncs.increment();
+    }
+
+    public void recordSkippedSync() {
+        skippedSyncs.increment();
+    }
+
+    public void recordStaleDataBlock() {
+        staleDataBlocks.increment();
+    }
+
+    public void recordQueuedDataBlock() {
+        queuedDataBlocks.increment();
+    }
+
+    public void recordDequeuedDataBlock() {
+        queuedDataBlocks.decrement();
+    }
+
+    public void recordBackpressure() {
+        backpressuredDataBlocks.increment();
+    }
+
+    public void recordPayload(long rawBytes, long encodedBytes, boolean compressed) {
+        payloadBytes.add(rawBytes);
+        encodedPayloadBytes.add(encodedBytes);
+        if (compressed)
+            compressedPayloads.increment();
+    }
+
+    /**
+     * Returns how often local data was written to the global cache or the global storage
+     * @return the amount of performed syncs
+     */
+    public long getPerformedSyncs() {
+        return performedSyncs.sum();
+    }
+
+    /**
+     * Returns how often a sync was skipped because the data did not change since it was last written
+     * @return the amount of skipped syncs
+     */
+    public long getSkippedSyncs() {
+        return skippedSyncs.sum();
+    }
+
+    /**
+     * Returns the size of all payloads this pipeline wrote to redis before compression
+     * @return the size in bytes
+     */
+    public long getPayloadBytes() {
+        return payloadBytes.sum();
+    }
+
+    /**
+     * Returns the size of all payloads this pipeline wrote to redis after compression
+     * @return the size in bytes
+     */
+    public long getEncodedPayloadBytes() {
+        return encodedPayloadBytes.sum();
+    }
+
+    /**
+     * Returns how many payloads were compressed
+     * @return the amount of compressed payloads
+     */
+    public long getCompressedPayloads() {
+        return compressedPayloads.sum();
+    }
+
+    /**
+     * Returns how many received data blocks were dropped because the local state was already newer
+     * @return the amount of dropped data blocks
+     */
+    public long getStaleDataBlocks() {
+        return staleDataBlocks.sum();
+    }
+
+    /**
+     * Returns how many received data blocks currently wait to be processed
+     * @return the queue depth
+     */
+    public long getQueuedDataBlocks() {
+        return queuedDataBlocks.sum();
+    }
+
+    /**
+     * Returns how often a received data block had to wait because the processing queue was full
+     * @return the amount of delayed data blocks
+     */
+    public long getBackpressuredDataBlocks() {
+        return backpressuredDataBlocks.sum();
+    }
+
+    /**
+     * Returns the size of the written payloads relative to their uncompressed size
+     * @return the ratio, 1 if nothing was written or compressed
+     */
+    public double getCompressionRatio() {
+        long raw = getPayloadBytes();
+        return raw == 0 ? 1 : (double) getEncodedPayloadBytes() / raw;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineMetrics{" +
+                "performedSyncs=" + getPerformedSyncs() +
+                ", skippedSyncs=" + getSkippedSyncs() +
+                ", staleDataBlocks=" + getStaleDataBlocks() +
+                ", queuedDataBlocks=" + getQueuedDataBlocks() +
+                ", backpressuredDataBlocks=" + getBackpressuredDataBlocks() +
+                ", compressionRatio=" + getCompressionRatio() +
+                '}';
+    }
+}
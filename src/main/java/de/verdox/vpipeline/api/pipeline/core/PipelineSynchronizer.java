@@ -33,6 +33,23 @@ public interface PipelineSynchronizer extends SystemPart {
      */
     void sync(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, boolean syncWithStorage);
 
+    /**
+     * Writes the local data of a data object to the global cache and the global storage without pushing it to other network nodes.
+     * Used before an object is dropped from the local cache.
+     * @param dataClass the data type
+     * @param objectUUID the data object uuid
+     */
+    void persist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID);
+
+    /**
+     * Drops the deferred storage writes of a data object and waits for a write of it that is in progress.
+     * Used when the object is deleted so a deferred write does not bring it back.
+     * @param dataClass the data type
+     * @param objectUUID the data object uuid
+     * @return true if the object had deferred writes
+     */
+    boolean discardPendingWrites(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID);
+
     enum DataSourceType {
         LOCAL,
         GLOBAL_CACHE,
@@ -1,5 +1,6 @@
 package de.verdox.vpipeline.api.pipeline.datatypes;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import de.verdox.vserializer.SerializableField;
 
@@ -7,9 +8,12 @@ import de.verdox.vpipeline.api.Connection;
 import de.verdox.vpipeline.api.NetworkLogger;
 import de.verdox.vpipeline.api.modules.AttachedPipeline;
 import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.core.PipelineSynchronizer;
 import de.verdox.vpipeline.api.pipeline.core.SystemPart;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
 import de.verdox.vpipeline.api.util.AnnotationResolver;
+import de.verdox.vpipeline.api.util.JsonPatch;
+import de.verdox.vpipeline.api.util.WireFormat;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vserializer.generic.SerializerBuilder;
 import org.jetbrains.annotations.NotNull;
@@ -17,6 +21,7 @@ import org.jetbrains.annotations.NotNull;
 import java.io.Serializable;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public interface DataSynchronizer extends SystemPart, Connection {
@@ -25,7 +30,9 @@ public interface DataSynchronizer extends SystemPart, Connection {
     Serializer<DataBlock> DATA_BLOCK_SERIALIZER = Serializer.Types.create("datablock", DataBlock.class)
             .type("update", UpdateDataBlock.SERIALIZER)
             .type("creation", CreationDataBlock.SERIALIZER)
-            .type("remove", RemoveDataBlock.SERIALIZER);
+            .type("remove", RemoveDataBlock.SERIALIZER)
+            .type("patch", PatchDataBlock.SERIALIZER)
+            .type("state_request", StateRequestDataBlock.SERIALIZER);
     /**
      * Cleanup Function triggered when data is removed from cache
      */
@@ -36,14 +43,63 @@ public interface DataSynchronizer extends SystemPart, Connection {
      */
     default void pushUpdate(@NotNull IPipelineData data) {
         Objects.requireNonNull(data, "data can't be null!");
+        pushUpdate(data, data.serialize());
+    }
+
+    /**
+     * Pushes the local data to the Pipeline using an already serialized form of the data
+     */
+    default void pushUpdate(@NotNull IPipelineData data, @NotNull JsonElement serialized) {
+        pushUpdate(data, serialized, 0);
+    }
+
+    /**
+     * Pushes the local data to the Pipeline using an already serialized form of the data
+     *
+     * @param version the version the global cache assigned to this state, or 0 to count up from the last known version
+     */
+    default void pushUpdate(@NotNull IPipelineData data, @NotNull JsonElement serialized, long version) {
+        Objects.requireNonNull(data, "data can't be null!");
+        Objects.requireNonNull(serialized, "serialized can't be null!");
         if (!data.getClass().equals(getSynchronizingType()))
             throw new IllegalArgumentException("The type of input parameter data " + data.getClass() + " does not match the synchronizer type " + getSynchronizingType());
-        int count = sendDataBlockToNetwork(new UpdateDataBlock(getSynchronizerUUID(), data.getObjectUUID(), getAttachedPipeline().getGson().toJson(data.serialize())));
+        String fullState = getAttachedPipeline().getGson().toJson(serialized);
+        JsonElement previousState = data.getNetworkState();
+        long previousVersion = data.getNetworkVersion();
+        // Receivers drop everything that is not newer than what they know
+        version = Math.max(version, previousVersion + 1);
+
+        DataBlock dataBlock = null;
+        // Nodes that still use the legacy wire format do not understand patches
+        if (previousState != null && AnnotationResolver.getDataProperties(getSynchronizingType()).deltaSync() && WireFormat.outgoingVersion() != WireFormat.LEGACY_JSON) {
+            String patch = JsonPatch.diff(previousState, serialized).toString();
+            // Large changes are cheaper to send as full state
+            if (patch.length() < fullState.length())
+                dataBlock = new PatchDataBlock(getSynchronizerUUID(), data.getObjectUUID(), previousVersion, version, patch);
+        }
+        if (dataBlock == null)
+            dataBlock = new UpdateDataBlock(getSynchronizerUUID(), data.getObjectUUID(), fullState, version);
+        data.setNetworkState(serialized, version, getSynchronizerUUID());
+        int count = sendDataBlockToNetwork(dataBlock);
         if (AnnotationResolver.getDataProperties(getSynchronizingType()).debugMode())
             NetworkLogger
                     .debug("Pushed network sync to " + count + " clients of " + data + " [" + data.getObjectUUID() + "]");
     }
 
+    /**
+     * Sends the last network state of the data again as full update. Used to answer {@link StateRequestDataBlock}s for states this synchronizer sent.
+     */
+    default void pushFullState(@NotNull IPipelineData data) {
+        Objects.requireNonNull(data, "data can't be null!");
+        JsonElement state = data.getNetworkState();
+        if (state == null)
+            return;
+        int count = sendDataBlockToNetwork(new UpdateDataBlock(getSynchronizerUUID(), data.getObjectUUID(), getAttachedPipeline().getGson().toJson(state), data.getNetworkVersion()));
+        if (AnnotationResolver.getDataProperties(getSynchronizingType()).debugMode())
+            NetworkLogger
+                    .debug("Pushed full state to " + count + " clients of " + data + " [" + data.getObjectUUID() + "]");
+    }
+
     /**
      * Notifies other Servers that hold this data to delete it from local Cache
      */
@@ -72,7 +128,7 @@ public interface DataSynchronizer extends SystemPart, Connection {
      * Used to send a data block to the network
      *
      * @param dataBlock the data block
-     * @return the amount of clients that received the synchronization
+     * @return the amount of clients that received the synchronization, or -1 if the data block was queued and is sent later
      */
     int sendDataBlockToNetwork(DataBlock dataBlock);
 
@@ -118,6 +174,26 @@ public interface DataSynchronizer extends SystemPart, Connection {
 
         public abstract void process(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline);
 
+        /**
+         * Checks if the local state of an object is already as new as a received version, before the payload is parsed.
+         * Version 0 is sent by nodes that do not version their data and is never stale.
+         * Without a global cache two nodes can count up to the same version. Then the state of the synchronizer with the higher uuid wins on every node.
+         */
+        protected static boolean isStale(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline, @NotNull UUID dataUUID, long version, @NotNull UUID senderUUID) {
+            if (version <= 0)
+                return false;
+            IPipelineData data = pipeline.getLocalCache().loadObject(dataClass, dataUUID);
+            if (data == null || version > data.getNetworkVersion())
+                return false;
+            UUID origin = data.getNetworkStateOrigin();
+            if (version == data.getNetworkVersion() && origin != null && senderUUID.compareTo(origin) > 0)
+                return false;
+            pipeline.getMetrics().recordStaleDataBlock();
+            if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                NetworkLogger.debug("Dropping stale version " + version + " of " + dataClass.getSimpleName() + " [" + dataUUID + "]. Local version is " + data.getNetworkVersion());
+            return true;
+        }
+
         @Override
         public String toString() {
             return "DataBlock{" +
@@ -141,6 +217,9 @@ public interface DataSynchronizer extends SystemPart, Connection {
 
         @Override
         public void process(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline) {
+            // The deleting node cleans up the storage under the write lock. Receivers only drop their deferred writes,
+            // a late removal must not delete an object that was created again in the meantime.
+            pipeline.getPipelineSynchronizer().discardPendingWrites(dataClass, dataUUID);
             IPipelineData remoteDataObject = pipeline.getLocalCache().loadObject(dataClass, dataUUID);
             if (remoteDataObject == null)
                 return;
@@ -210,19 +289,28 @@ public interface DataSynchronizer extends SystemPart, Connection {
                         new SerializableField<>("senderUUID", Serializer.UUID.INSTANCE, UpdateDataBlock::getSenderUUID),
                         new SerializableField<>("dataUUID", Serializer.UUID.INSTANCE, UpdateDataBlock::getDataUUID),
                         new SerializableField<>("dataToUpdate", Serializer.Primitive.STRING, UpdateDataBlock::getDataToUpdate),
+                        new SerializableField<>("version", Serializer.Primitive.LONG, UpdateDataBlock::getVersion),
                         UpdateDataBlock::new
                 )
                 .build();
         private final String dataToUpdate;
+        private final long version;
 
-        public UpdateDataBlock(@NotNull UUID senderUUID, @NotNull UUID dataUUID, String dataToUpdate) {
+        public UpdateDataBlock(@NotNull UUID senderUUID, @NotNull UUID dataUUID, String dataToUpdate, long version) {
             super(senderUUID, dataUUID);
             Objects.requireNonNull(dataToUpdate);
             this.dataToUpdate = dataToUpdate;
+            this.version = version;
+        }
+
+        public UpdateDataBlock(@NotNull UUID senderUUID, @NotNull UUID dataUUID, String dataToUpdate) {
+            this(senderUUID, dataUUID, dataToUpdate, 0);
         }
 
         @Override
         public void process(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline) {
+            if (isStale(dataClass, pipeline, dataUUID, version, senderUUID))
+                return;
             // We save the data to local cache when there are data subscribers that wait for values
             if (pipeline.getLocalCache().hasDataSubscribers(dataClass, dataUUID)) {
                 NetworkLogger.debug("Saving data due to existing subscribers for " + dataClass.getSimpleName() + " [" + dataUUID + "]");
@@ -236,7 +324,12 @@ public interface DataSynchronizer extends SystemPart, Connection {
             if (AnnotationResolver.getDataProperties(dataClass).debugMode())
                 NetworkLogger.debug("Received network sync for " + dataClass.getSimpleName() + " [" + data + " | " + dataUUID + "]");
             String dataBeforeSync = data.serialize().toString();
-            data.deserialize(dataToUpdate);
+            JsonElement state = JsonParser.parseString(dataToUpdate);
+            data.deserialize(state);
+            // The sender got the version when it wrote this state to the global cache
+            if (version > 0)
+                data.markSynced(state, PipelineSynchronizer.DataSourceType.GLOBAL_CACHE);
+            data.setNetworkState(state, version, senderUUID);
             data.onSync(dataBeforeSync);
             DataAccess<IPipelineData> access = pipeline.getLocalCache().createAccess(dataClass, dataUUID);
             access.notifySubscribers(data);
@@ -246,13 +339,169 @@ public interface DataSynchronizer extends SystemPart, Connection {
             return dataToUpdate;
         }
 
+        public long getVersion() {
+            return version;
+        }
+
         @Override
         public String toString() {
             return "UpdateDataBlock{" +
                     "senderUUID=" + senderUUID +
                     ", dataUUID=" + dataUUID +
+                    ", version=" + version +
                     ", dataToUpdate='" + dataToUpdate + '\'' +
                     '}';
         }
     }
+
+    /**
+     * Carries the changes between two versions of an object as json patch.
+     * Receivers that do not hold the base version fall back to the full state.
+     */
+    class PatchDataBlock extends DataBlock {
+        public static final Serializer<PatchDataBlock> SERIALIZER = SerializerBuilder.create("patchDataBlock", PatchDataBlock.class)
+                .constructor(
+                        new SerializableField<>("senderUUID", Serializer.UUID.INSTANCE, PatchDataBlock::getSenderUUID),
+                        new SerializableField<>("dataUUID", Serializer.UUID.INSTANCE, PatchDataBlock::getDataUUID),
+                        new SerializableField<>("baseVersion", Serializer.Primitive.LONG, PatchDataBlock::getBaseVersion),
+                        new SerializableField<>("version", Serializer.Primitive.LONG, PatchDataBlock::getVersion),
+                        new SerializableField<>("patch", Serializer.Primitive.STRING, PatchDataBlock::getPatch),
+                        PatchDataBlock::new
+                )
+                .build();
+        private final long baseVersion;
+        private final long version;
+        private final String patch;
+
+        public PatchDataBlock(@NotNull UUID senderUUID, @NotNull UUID dataUUID, long baseVersion, long version, @NotNull String patch) {
+            super(senderUUID, dataUUID);
+            Objects.requireNonNull(patch);
+            this.baseVersion = baseVersion;
+            this.version = version;
+            this.patch = patch;
+        }
+
+        @Override
+        public void process(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline) {
+            if (isStale(dataClass, pipeline, dataUUID, version, senderUUID))
+                return;
+            IPipelineData data = pipeline.getLocalCache().loadObject(dataClass, dataUUID);
+            if (data == null) {
+                // Subscribers wait for values but there is no base to apply the patch on
+                if (pipeline.getLocalCache().hasDataSubscribers(dataClass, dataUUID))
+                    requestFullState(dataClass, pipeline);
+                return;
+            }
+
+            JsonElement baseState = data.getNetworkState();
+            if (baseState == null || data.getNetworkVersion() != baseVersion) {
+                if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                    NetworkLogger.debug("Version gap for " + dataClass.getSimpleName() + " [" + dataUUID + "]. Expected " + baseVersion + " but got " + data.getNetworkVersion());
+                requestFullState(dataClass, pipeline);
+                return;
+            }
+
+            JsonElement state;
+            try {
+                state = JsonPatch.apply(baseState, JsonParser.parseString(patch).getAsJsonArray());
+            } catch (RuntimeException e) {
+                NetworkLogger.getLogger().log(Level.WARNING, "Could not apply patch for " + dataClass.getSimpleName() + " [" + dataUUID + "]", e);
+                requestFullState(dataClass, pipeline);
+                return;
+            }
+            if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                NetworkLogger.debug("Received network patch for " + dataClass.getSimpleName() + " [" + data + " | " + dataUUID + "]");
+            String dataBeforeSync = data.serialize().toString();
+            data.deserialize(state);
+            // The sender got the version when it wrote this state to the global cache
+            if (version > 0)
+                data.markSynced(state, PipelineSynchronizer.DataSourceType.GLOBAL_CACHE);
+            data.setNetworkState(state, version, senderUUID);
+            data.onSync(dataBeforeSync);
+            DataAccess<IPipelineData> access = pipeline.getLocalCache().createAccess(dataClass, dataUUID);
+            access.notifySubscribers(data);
+        }
+
+        /**
+         * Loads the full state from the global cache. The sender writes the global cache before it publishes the patch.
+         * Without a global cache the node that sent the patch is asked to send its state.
+         */
+        private void requestFullState(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline) {
+            if (pipeline.getGlobalCache() != null && AnnotationResolver.getDataProperties(dataClass).dataContext().isCacheAllowed()) {
+                JsonElement state = pipeline.getGlobalCache().loadDataIfPresent(dataClass, dataUUID).orElse(null);
+                if (state != null) {
+                    IPipelineData localData = pipeline.getLocalCache().loadObject(dataClass, dataUUID);
+                    String dataBeforeSync = localData == null ? null : localData.serialize().toString();
+                    pipeline.getLocalCache().save(dataClass, dataUUID, state);
+                    IPipelineData data = pipeline.getLocalCache().loadObject(dataClass, dataUUID);
+                    if (data == null)
+                        return;
+                    data.markSynced(state, PipelineSynchronizer.DataSourceType.GLOBAL_CACHE);
+                    data.setNetworkState(state, version, senderUUID);
+                    // Objects that were only loaded for the subscribers did not change
+                    if (dataBeforeSync != null)
+                        data.onSync(dataBeforeSync);
+                    DataAccess<IPipelineData> access = pipeline.getLocalCache().createAccess(dataClass, dataUUID);
+                    access.notifySubscribers(data);
+                    return;
+                }
+            }
+            // Nodes that still use the legacy wire format can't answer state requests
+            if (pipeline.getSynchronizingService() == null || WireFormat.outgoingVersion() == WireFormat.LEGACY_JSON)
+                return;
+            DataSynchronizer dataSynchronizer = pipeline.getSynchronizingService().getOrCreate(pipeline, dataClass);
+            dataSynchronizer.sendDataBlockToNetwork(new StateRequestDataBlock(dataSynchronizer.getSynchronizerUUID(), dataUUID));
+        }
+
+        public long getBaseVersion() {
+            return baseVersion;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getPatch() {
+            return patch;
+        }
+
+        @Override
+        public String toString() {
+            return "PatchDataBlock{" +
+                    "senderUUID=" + senderUUID +
+                    ", dataUUID=" + dataUUID +
+                    ", baseVersion=" + baseVersion +
+                    ", version=" + version +
+                    ", patch='" + patch + '\'' +
+                    '}';
+        }
+    }
+
+    /**
+     * Asks the node that sent the latest state of an object to send it again as full state
+     */
+    class StateRequestDataBlock extends DataBlock {
+        public static final Serializer<StateRequestDataBlock> SERIALIZER = SerializerBuilder.create("stateRequestDataBlock", StateRequestDataBlock.class)
+                .constructor(
+                        new SerializableField<>("senderUUID", Serializer.UUID.INSTANCE, StateRequestDataBlock::getSenderUUID),
+                        new SerializableField<>("dataUUID", Serializer.UUID.INSTANCE, StateRequestDataBlock::getDataUUID),
+                        StateRequestDataBlock::new
+                )
+                .build();
+
+        public StateRequestDataBlock(@NotNull UUID senderUUID, @NotNull UUID dataUUID) {
+            super(senderUUID, dataUUID);
+        }
+
+        @Override
+        public void process(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline) {
+            IPipelineData data = pipeline.getLocalCache().loadObject(dataClass, dataUUID);
+            if (data == null)
+                return;
+            // Only one node answers instead of every node that holds the object
+            if (!data.getSynchronizer().getSynchronizerUUID().equals(data.getNetworkStateOrigin()))
+                return;
+            data.getSynchronizer().pushFullState(data);
+        }
+    }
 }
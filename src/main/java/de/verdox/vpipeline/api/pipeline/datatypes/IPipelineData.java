@@ -4,6 +4,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vpipeline.api.modules.AttachedPipeline;
+import de.verdox.vpipeline.api.pipeline.core.PipelineSynchronizer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -89,9 +90,77 @@ public interface IPipelineData {
         deserialize(JsonParser.parseString(jsonString));
     }
 
+    /**
+     * Marks this object as changed. The next sync writes the object to every destination even if its serialized form did not change.
+     */
+    default void markDirty() {
+    }
+
+    /**
+     * Checks if the serialized form of this object differs from the form that was last written to the destination and remembers the new form.
+     * @param serialized the current serialized form of this object
+     * @param destination the destination the object is written to
+     * @return true if the object has to be written to the destination
+     */
+    default boolean checkAndUpdateSyncState(@NotNull JsonElement serialized, @NotNull PipelineSynchronizer.DataSourceType destination) {
+        return true;
+    }
+
+    /**
+     * Remembers that a state of this object is already stored in a source, so it is not written there again until it changes.
+     * Used after the object was loaded from the source.
+     * @param state the state that is stored in the source
+     * @param source the source the state was loaded from
+     */
+    default void markSynced(@NotNull JsonElement state, @NotNull PipelineSynchronizer.DataSourceType source) {
+    }
+
+    /**
+     * Returns the last state of this object that was sent to or received from the network. It is used as the base of delta updates.
+     * @return the state or null if it is not known
+     */
+    @Nullable
+    default JsonElement getNetworkState() {
+        return null;
+    }
+
+    /**
+     * Returns the version of {@link #getNetworkState()}
+     * @return the version
+     */
+    default long getNetworkVersion() {
+        return 0;
+    }
+
+    /**
+     * Returns the synchronizer that sent {@link #getNetworkState()}. It decides between two states of the same version.
+     * @return the synchronizer uuid or null if the state was not received from a network node
+     */
+    @Nullable
+    default UUID getNetworkStateOrigin() {
+        return null;
+    }
+
+    /**
+     * Updates the state of this object that is known to the network
+     * @param state the state. It must not be modified afterwards
+     * @param version the version of the state
+     * @param origin the synchronizer that sent the state or null if it was not received from a network node
+     */
+    default void setNetworkState(@Nullable JsonElement state, long version, @Nullable UUID origin) {
+    }
+
     @NotNull
     DataSynchronizer getSynchronizer();
     void updateLastUsage();
+
+    /**
+     * Returns the last time this object was used in the local cache
+     * @return the timestamp in milliseconds
+     */
+    default long getLastUsage() {
+        return System.currentTimeMillis();
+    }
     void save(boolean saveToStorage);
     AttachedPipeline getAttachedPipeline();
 
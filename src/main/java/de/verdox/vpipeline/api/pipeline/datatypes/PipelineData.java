@@ -1,5 +1,6 @@
 package de.verdox.vpipeline.api.pipeline.datatypes;
 
+import com.google.common.hash.Hashing;
 import com.google.gson.GsonBuilder;
 import com.google.gson.InstanceCreator;
 import com.google.gson.JsonElement;
@@ -8,6 +9,7 @@ import de.verdox.vpipeline.api.NetworkLogger;
 import de.verdox.vpipeline.api.modules.AttachedPipeline;
 import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
 import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.core.PipelineSynchronizer;
 import de.verdox.vpipeline.api.util.AnnotationResolver;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vserializer.json.JsonSerializationElement;
@@ -16,6 +18,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -29,8 +34,16 @@ public abstract class PipelineData implements IPipelineData {
     private transient final DataSynchronizer dataSynchronizer;
     private transient final long cleanTime;
     private transient final TimeUnit cleanTimeUnit;
-    private transient long lastUse = System.currentTimeMillis();
+    private transient volatile long lastUse = System.currentTimeMillis();
     private transient final AttachedPipeline attachedPipeline;
+    private transient final Object syncStateLock = new Object();
+    // Content hashes of the state that was last written to each destination
+    private transient final Map<PipelineSynchronizer.DataSourceType, Long> syncedHashes = new EnumMap<>(PipelineSynchronizer.DataSourceType.class);
+    @Nullable
+    private transient JsonElement networkState;
+    private transient long networkVersion;
+    @Nullable
+    private transient UUID networkStateOrigin;
     @Nullable
     private transient Serializer<IPipelineData> customSerializer;
 
@@ -104,6 +117,66 @@ public abstract class PipelineData implements IPipelineData {
         }
     }
 
+    @Override
+    public void markDirty() {
+        synchronized (syncStateLock) {
+            syncedHashes.clear();
+        }
+    }
+
+    @Override
+    public boolean checkAndUpdateSyncState(@NotNull JsonElement serialized, @NotNull PipelineSynchronizer.DataSourceType destination) {
+        long hash = contentHash(serialized);
+        synchronized (syncStateLock) {
+            Long previousHash = syncedHashes.put(destination, hash);
+            return previousHash == null || previousHash != hash;
+        }
+    }
+
+    @Override
+    public void markSynced(@NotNull JsonElement state, @NotNull PipelineSynchronizer.DataSourceType source) {
+        if (source == PipelineSynchronizer.DataSourceType.LOCAL)
+            return;
+        long hash = contentHash(state);
+        synchronized (syncStateLock) {
+            syncedHashes.put(source, hash);
+        }
+    }
+
+    @Override
+    public @Nullable JsonElement getNetworkState() {
+        synchronized (syncStateLock) {
+            return networkState;
+        }
+    }
+
+    @Override
+    public long getNetworkVersion() {
+        synchronized (syncStateLock) {
+            return networkVersion;
+        }
+    }
+
+    @Override
+    public @Nullable UUID getNetworkStateOrigin() {
+        synchronized (syncStateLock) {
+            return networkStateOrigin;
+        }
+    }
+
+    @Override
+    public void setNetworkState(@Nullable JsonElement state, long version, @Nullable UUID origin) {
+        synchronized (syncStateLock) {
+            this.networkState = state;
+            this.networkVersion = version;
+            this.networkStateOrigin = origin;
+        }
+    }
+
+    private static long contentHash(@NotNull JsonElement jsonElement) {
+        return Hashing.murmur3_128().hashString(jsonElement.toString(), StandardCharsets.UTF_8).asLong();
+    }
+
     @Override
     public @NotNull DataSynchronizer getSynchronizer() {
         return dataSynchronizer;
@@ -114,6 +187,11 @@ public abstract class PipelineData implements IPipelineData {
         lastUse = System.currentTimeMillis();
     }
 
+    @Override
+    public long getLastUsage() {
+        return lastUse;
+    }
+
     @Override
     public void save(boolean saveToStorage) {
         updateLastUsage();
@@ -162,7 +240,7 @@ public abstract class PipelineData implements IPipelineData {
         }
 
         @Override
-        public void pushUpdate(@NotNull IPipelineData data) {
+        public void pushUpdate(@NotNull IPipelineData data, @NotNull JsonElement serialized, long version) {
             NetworkLogger.debug("[" + data.getAttachedPipeline().getAttachedPipeline().getNetworkParticipant().getIdentifier() + "] Syncing with dummy data synchronizer");
         }
 
@@ -13,6 +13,8 @@ public interface SynchronizingService extends SystemPart, Connection {
 
     Serializer<SynchronizingService> SERIALIZER = Serializer.Selection.create("synchronizingService", SynchronizingService.class)
             .variant("redis", RedisSynchronizingService.SERIALIZER, new RedisSynchronizingService(new RedisConnection(false, new String[]{"redis://localhost:6379"}, "")))
+            .variant("redis_sharded", RedisSynchronizingService.SHARDED_SERIALIZER, new RedisSynchronizingService(new RedisConnection(false, new String[]{"redis://localhost:6379"}, ""), 16))
+            .variant("redis_batched", RedisSynchronizingService.BATCHED_SERIALIZER, new RedisSynchronizingService(new RedisConnection(false, new String[]{"redis://localhost:6379"}, ""), 0, 10, RedisSynchronizingService.DEFAULT_MAX_BATCH_SIZE))
             .variant("dummy", Serializer.Dummy.create(new DummySynchronizingService()));
     default DataSynchronizer getOrCreate(@NotNull Pipeline pipeline, @NotNull IPipelineData data) {
         return getOrCreate(pipeline, data.getClass());
@@ -27,4 +29,22 @@ public interface SynchronizingService extends SystemPart, Connection {
     static SynchronizingService buildRedisService(RedisConnection redisConnection) {
         return new RedisSynchronizingService(redisConnection);
     }
+
+    /**
+     * Creates a redis synchronizing service that only receives updates of objects held in the local cache
+     * @param shardCount the amount of shard topics per type, has to be equal on all nodes
+     */
+    static SynchronizingService buildShardedRedisService(RedisConnection redisConnection, int shardCount) {
+        return new RedisSynchronizingService(redisConnection, shardCount);
+    }
+
+    /**
+     * Creates a redis synchronizing service that coalesces outgoing data blocks and publishes them in batches
+     * @param shardCount the amount of shard topics per type, or 0 for one topic per type
+     * @param maxDelayMillis the maximum time a data block is queued before it is published
+     * @param maxBatchSize the maximum amount of data blocks in one message
+     */
+    static SynchronizingService buildBatchedRedisService(RedisConnection redisConnection, int shardCount, long maxDelayMillis, int maxBatchSize) {
+        return new RedisSynchronizingService(redisConnection, shardCount, maxDelayMillis, maxBatchSize);
+    }
 }
\ No newline at end of file
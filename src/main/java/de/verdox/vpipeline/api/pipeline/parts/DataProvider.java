@@ -7,8 +7,14 @@ import de.verdox.vpipeline.api.pipeline.core.SystemPart;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 public interface DataProvider extends SystemPart {
@@ -16,11 +22,80 @@ public interface DataProvider extends SystemPart {
 
     boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID);
 
+    /**
+     * Loads the data of an object if it exists. Implementations should answer this with a single round trip
+     * instead of calling {@link #dataExist(Class, UUID)} and {@link #loadData(Class, UUID)} after each other.
+     *
+     * @param dataClass  the data class
+     * @param objectUUID the uuid of the object
+     * @return the data or an empty optional if the object does not exist in this provider
+     */
+    default Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        if (!dataExist(dataClass, objectUUID))
+            return Optional.empty();
+        return Optional.ofNullable(loadData(dataClass, objectUUID));
+    }
+
     void save(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement dataToSave);
 
     boolean remove(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID);
 
     Set<UUID> getSavedUUIDs(@NotNull Class<? extends IPipelineData> dataClass);
 
+    /**
+     * Saves the data of multiple objects of the same type. Implementations should save all objects in as few round trips as possible.
+     *
+     * @param dataClass   the data class
+     * @param dataToSave  the data mapped by the uuid of its object
+     */
+    default void saveBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Map<UUID, JsonElement> dataToSave) {
+        dataToSave.forEach((objectUUID, data) -> save(dataClass, objectUUID, data));
+    }
+
+    /**
+     * Loads the data of multiple objects of the same type. Implementations should fetch all objects in as few round trips as possible.
+     *
+     * @param dataClass   the data class
+     * @param objectUUIDs the uuids of the objects
+     * @return the data of every object that exists in this provider mapped by its uuid
+     */
+    default Map<UUID, JsonElement> loadDataBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Map<UUID, JsonElement> result = new HashMap<>();
+        for (UUID objectUUID : objectUUIDs) {
+            if (!dataExist(dataClass, objectUUID))
+                continue;
+            JsonElement data = loadData(dataClass, objectUUID);
+            if (data != null)
+                result.put(objectUUID, data);
+        }
+        return result;
+    }
+
+    /**
+     * Loads the data of all objects of a type. Implementations should stream the objects instead of loading every object on its own.
+     *
+     * @param dataClass the data class
+     * @param consumer  receives the data of every object with its uuid
+     */
+    default void loadAll(@NotNull Class<? extends IPipelineData> dataClass, @NotNull BiConsumer<UUID, JsonElement> consumer) {
+        loadDataBatch(dataClass, getSavedUUIDs(dataClass)).forEach(consumer);
+    }
+
+    /**
+     * Checks the existence of multiple objects of the same type. Implementations should check all objects in as few round trips as possible.
+     *
+     * @param dataClass   the data class
+     * @param objectUUIDs the uuids of the objects
+     * @return the uuids of the objects that exist in this provider
+     */
+    default Set<UUID> dataExistBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Set<UUID> result = new HashSet<>();
+        for (UUID objectUUID : objectUUIDs) {
+            if (dataExist(dataClass, objectUUID))
+                result.add(objectUUID);
+        }
+        return result;
+    }
+
     AttachedPipeline getAttachedPipeline();
 }
\ No newline at end of file
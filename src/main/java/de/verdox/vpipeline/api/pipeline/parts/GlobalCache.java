@@ -1,17 +1,31 @@
 package de.verdox.vpipeline.api.pipeline.parts;
 
+import com.google.gson.JsonElement;
 import de.verdox.vpipeline.api.Connection;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.parts.cache.global.RedisCache;
 import de.verdox.vpipeline.impl.util.RedisConnection;
 import de.verdox.vserializer.generic.Serializer;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.UUID;
+
 public interface GlobalCache extends DataProvider, Connection {
     Serializer<GlobalCache> SERIALIZER = Serializer.Selection.create("global_cache", GlobalCache.class)
             .empty("nothing")
             .variant("redis", RedisCache.SERIALIZER, new RedisCache(new RedisConnection(false, new String[]{"redis://localhost:6379"}, "")))
+            .variant("redis_near_cache", RedisCache.NEAR_CACHE_SERIALIZER, new RedisCache(new RedisConnection(false, new String[]{"redis://localhost:6379"}, ""), 10_000))
             ;
 
+    /**
+     * Saves data and returns its new version. The version increases with every save of the object, no matter which node saved it.
+     * @return the new version or 0 if this cache does not keep versions
+     */
+    default long saveVersioned(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement dataToSave) {
+        save(dataClass, objectUUID, dataToSave);
+        return 0;
+    }
+
     static GlobalCache createRedisCache(boolean clusterMode, @NotNull String[] addressArray, String redisPassword) {
         return createRedisCache(new RedisConnection(clusterMode, addressArray, redisPassword));
     }
@@ -19,4 +33,11 @@ public interface GlobalCache extends DataProvider, Connection {
     static GlobalCache createRedisCache(RedisConnection redisConnection) {
         return new RedisCache(redisConnection);
     }
+
+    /**
+     * Creates a redis cache with a near cache that keeps up to nearCacheSize parsed values in memory
+     */
+    static GlobalCache createRedisCache(RedisConnection redisConnection, int nearCacheSize) {
+        return new RedisCache(redisConnection, nearCacheSize);
+    }
 }
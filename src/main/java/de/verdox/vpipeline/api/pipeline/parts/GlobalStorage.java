@@ -4,9 +4,12 @@ import com.zaxxer.hikari.HikariConfig;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vpipeline.api.Connection;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.storage.EmbeddedSQLStorage;
+import de.verdox.vpipeline.api.pipeline.parts.storage.JdbcStorage;
 import de.verdox.vpipeline.api.pipeline.parts.storage.JsonFileStorage;
 import de.verdox.vpipeline.api.pipeline.parts.storage.MongoDBStorage;
 import de.verdox.vpipeline.api.pipeline.parts.storage.MySQLStorage;
+import de.verdox.vpipeline.api.pipeline.parts.storage.SqlDialect;
 import de.verdox.vpipeline.api.util.AnnotationResolver;
 import org.jetbrains.annotations.NotNull;
 
@@ -18,8 +21,18 @@ public interface GlobalStorage extends DataProvider, Connection {
     Serializer<GlobalStorage> SERIALIZER = Serializer.Selection.create("global_cache", GlobalStorage.class)
             .variant("json", JsonFileStorage.SERIALIZER, new JsonFileStorage(Path.of("storage")))
             .variant("mongo", MongoDBStorage.SERIALIZER, new MongoDBStorage("127.0.0.1", "pipeline", 27017, "root", "password", "https://mongoURL"))
+            .variant("sql", JdbcStorage.SERIALIZER, new JdbcStorage(defaultHikariConfig("jdbc:mysql://127.0.0.1:3306/pipeline"), SqlDialect.MYSQL))
+            .variant("embedded_sql", EmbeddedSQLStorage.SERIALIZER, new EmbeddedSQLStorage(Path.of("storage", "pipeline"), SqlDialect.H2))
             ;
 
+    private static HikariConfig defaultHikariConfig(@NotNull String jdbcUrl) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        hikariConfig.setUsername("root");
+        hikariConfig.setPassword("password");
+        return hikariConfig;
+    }
+
     default String getSuffix(@NotNull Class<? extends IPipelineData> dataClass) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         return AnnotationResolver.getDataStorageIdentifier(dataClass);
@@ -39,6 +52,14 @@ public interface GlobalStorage extends DataProvider, Connection {
         return new MongoDBStorage("", "", 0, "", "", url);
     }
 
+    /**
+     * @param writeBatchSize the amount of documents written with one bulk write
+     * @param fetchSize      the amount of documents fetched at once when multiple objects are read
+     */
+    static GlobalStorage buildMongoDBStorage(String url, int writeBatchSize, int fetchSize) {
+        return new MongoDBStorage("", "", 0, "", "", url, writeBatchSize, fetchSize);
+    }
+
     static GlobalStorage buildJsonStorage(Path path) {
         return new JsonFileStorage(path);
     }
@@ -46,4 +67,24 @@ public interface GlobalStorage extends DataProvider, Connection {
     static GlobalStorage buildSQLStorage(HikariConfig hikariConfig) {
         return new MySQLStorage(hikariConfig);
     }
+
+    /**
+     * @param writeBatchSize the amount of rows written with one JDBC batch
+     * @param fetchSize      the amount of rows fetched at once when a whole table is read
+     */
+    static GlobalStorage buildSQLStorage(HikariConfig hikariConfig, int writeBatchSize, int fetchSize) {
+        return new MySQLStorage(hikariConfig, writeBatchSize, fetchSize);
+    }
+
+    static GlobalStorage buildSQLStorage(HikariConfig hikariConfig, SqlDialect dialect) {
+        return new JdbcStorage(hikariConfig, dialect);
+    }
+
+    /**
+     * @param path    the database file
+     * @param dialect {@link SqlDialect#H2} or {@link SqlDialect#SQLITE}
+     */
+    static GlobalStorage buildEmbeddedSQLStorage(Path path, SqlDialect dialect) {
+        return new EmbeddedSQLStorage(path, dialect);
+    }
 }
\ No newline at end of file
@@ -3,11 +3,14 @@ package de.verdox.vpipeline.api.pipeline.parts;
 import de.verdox.vpipeline.api.Connection;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.parts.lock.DummyNetworkDataLockingService;
+import de.verdox.vpipeline.api.pipeline.parts.lock.MultiLock;
 import de.verdox.vpipeline.api.pipeline.parts.lock.RedisNetworkDataLockingService;
 import de.verdox.vpipeline.impl.util.RedisConnection;
 import de.verdox.vserializer.generic.Serializer;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.locks.Lock;
 
@@ -40,6 +43,32 @@ public interface NetworkDataLockingService extends Connection {
      */
     <T extends IPipelineData> Lock getWriteLock(@NotNull Class<? extends T> type, @NotNull UUID uuid);
 
+    /**
+     * Returns one {@link Lock} that holds the read locks of several {@link IPipelineData} objects of a type.
+     * The locks are acquired in ascending uuid order, so two batches with overlapping uuids can't deadlock.
+     *
+     * @param type  the type
+     * @param uuids the uuids
+     * @param <T>   the generic pipeline data type
+     * @return the lock
+     */
+    default <T extends IPipelineData> Lock getReadLocks(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids) {
+        return new MultiLock(new TreeSet<>(uuids).stream().map(uuid -> getReadLock(type, uuid)).toList());
+    }
+
+    /**
+     * Returns one {@link Lock} that holds the write locks of several {@link IPipelineData} objects of a type.
+     * The locks are acquired in ascending uuid order, so two batches with overlapping uuids can't deadlock.
+     *
+     * @param type  the type
+     * @param uuids the uuids
+     * @param <T>   the generic pipeline data type
+     * @return the lock
+     */
+    default <T extends IPipelineData> Lock getWriteLocks(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids) {
+        return new MultiLock(new TreeSet<>(uuids).stream().map(uuid -> getWriteLock(type, uuid)).toList());
+    }
+
     /**
      * Creates a dummy {@link NetworkDataLockingService} that only holds local locks that are not shared across the network.
      * If you only have one game server node you won't need network locks since you only have to ensure read/write thread-safety across
@@ -1,5 +1,7 @@
 package de.verdox.vpipeline.api.pipeline.parts.cache.global;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
@@ -10,40 +12,110 @@ import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalCache;
 import de.verdox.vpipeline.api.util.AnnotationResolver;
+import de.verdox.vpipeline.api.util.PayloadCompression;
 import de.verdox.vpipeline.impl.util.RedisConnection;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vserializer.generic.SerializerBuilder;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RSet;
+import org.redisson.api.RTopic;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.ByteArrayCodec;
 import org.redisson.client.codec.StringCodec;
 
 import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * A {@link GlobalCache} that stores every object as a json string in its own redis bucket.
+ * <p>
+ * The uuids of all cached objects of a type are additionally kept in a redis set, so that {@link #getSavedUUIDs(Class)}
+ * does not need to scan the whole keyspace. The set is updated in the same MULTI/EXEC transaction as the bucket.
+ * Deployments that cached data with an older version have to call {@link #rebuildIndexes()} once.
+ * <p>
+ * Every versioned save increments a counter per object, which orders the writes of all nodes.
+ * The counters of a type are kept in one redis hash. Types with {@link PipelineDataProperties#cleanOnNoUse()} keep every counter in its own key
+ * that expires with the data. Such a counter starts again from the current time, so it stays above the versions other nodes already know.
+ * Removing an object keeps its counter, so an object that is created again continues with higher versions than its removed predecessor.
+ * <p>
+ * Optionally a bounded near cache keeps parsed values in memory. It is invalidated over a redis topic whenever any node writes a key.
+ * Every instance publishes its writes and removals on that topic, also if it has no near cache itself.
+ */
 public class RedisCache implements GlobalCache {
+    private static final int INDEX_SCAN_COUNT = 500;
+    private static final int MAX_TRACKED_TOUCHES = 100_000;
+    // Increments an expiring version counter. A new counter starts at the passed seed.
+    private static final String EXPIRING_VERSION_SCRIPT = "local version = redis.call('incr', KEYS[1]) if version == 1 then version = redis.call('incrby', KEYS[1], ARGV[1]) end redis.call('pexpire', KEYS[1], ARGV[2]) return version";
+    // Removes an index entry only if its bucket does not exist, so a concurrent write can't lose its entry
+    private static final String REMOVE_STALE_INDEX_ENTRY_SCRIPT = "if redis.call('exists', KEYS[2]) == 0 then return redis.call('srem', KEYS[1], ARGV[1]) end return 0";
     public static final Serializer<RedisCache> SERIALIZER = SerializerBuilder.create("redis_cache", RedisCache.class)
             .constructor(
                     new SerializableField<>("redis_connection", RedisConnection.SERIALIZER, RedisCache::getRedisConnection),
                     RedisCache::new
             )
             .build();
+    public static final Serializer<RedisCache> NEAR_CACHE_SERIALIZER = SerializerBuilder.create("redis_near_cache", RedisCache.class)
+            .constructor(
+                    new SerializableField<>("redis_connection", RedisConnection.SERIALIZER, RedisCache::getRedisConnection),
+                    new SerializableField<>("near_cache_size", Serializer.Primitive.INTEGER, RedisCache::getNearCacheSize),
+                    RedisCache::new
+            )
+            .build();
 
     private final AttachedPipeline attachedPipeline;
     private final RedisConnection redisConnection;
+    // Time of the last ttl refresh per key, used to throttle touches on read
+    private final Cache<String, Long> lastTouches = CacheBuilder.newBuilder().maximumSize(MAX_TRACKED_TOUCHES).build();
+
+    // GETEX is only available since redis 6.2
+    private volatile boolean getExSupported = true;
+    private final int nearCacheSize;
+    @Nullable
+    private final RedisNearCache nearCache;
+    private final UUID instanceUUID = UUID.randomUUID();
+    private volatile RTopic invalidationTopic;
 
     public RedisCache(RedisConnection redisConnection) {
+        this(redisConnection, 0);
+    }
+
+    /**
+     * @param redisConnection the redis connection
+     * @param nearCacheSize the maximum number of values kept in the near cache, or 0 to disable the near cache
+     */
+    public RedisCache(RedisConnection redisConnection, int nearCacheSize) {
         this.redisConnection = redisConnection;
         this.attachedPipeline = new AttachedPipeline(GsonBuilder::create);
+        if (nearCacheSize < 0)
+            throw new IllegalArgumentException("nearCacheSize can't be negative");
+        this.nearCacheSize = nearCacheSize;
+        this.nearCache = nearCacheSize > 0 ? new RedisNearCache(instanceUUID, nearCacheSize) : null;
     }
 
     @Override
     public JsonElement loadData(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         verifyInput(dataClass, objectUUID);
         try {
-            return JsonParser.parseString(getObjectCache(dataClass, objectUUID).get()).getAsJsonObject();
+            return readParsed(dataClass, objectUUID);
         } catch (Exception e) {
             e.printStackTrace();
             remove(dataClass, objectUUID);
@@ -54,37 +126,235 @@ public class RedisCache implements GlobalCache {
     @Override
     public boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         verifyInput(dataClass, objectUUID);
-        var objectCache = getObjectCache(dataClass, objectUUID);
-        return objectCache.isExists();
+        if (nearCache != null && nearCache.contains(getKey(dataClass, objectUUID)))
+            return true;
+        // An existence check is not a use of the data and does not refresh its ttl
+        return getObjectCache(dataClass, objectUUID).isExists();
     }
 
     @Override
     public void save(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement dataToSave) {
+        write(dataClass, objectUUID, dataToSave, false);
+    }
+
+    /**
+     * Saves the data and increments its version in the same transaction.
+     */
+    @Override
+    public long saveVersioned(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement dataToSave) {
+        return write(dataClass, objectUUID, dataToSave, true);
+    }
+
+    private long write(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement dataToSave, boolean versioned) {
         verifyInput(dataClass, objectUUID);
-        RBucket<String> objectCache = getObjectCache(dataClass, objectUUID);
-        objectCache.set(attachedPipeline.getGson().toJson(dataToSave));
-        if (AnnotationResolver.getDataProperties(dataClass).debugMode())
-            NetworkLogger.debug("[RedisCache] Saving to redis cache " + dataClass.getSimpleName() + " [" + objectCache + "]");
-        updateExpireTime(dataClass, objectCache);
+        PipelineDataProperties properties = AnnotationResolver.getDataProperties(dataClass);
+        String key = getKey(dataClass, objectUUID);
+
+        RBatch transaction = createTransaction();
+        RBucketAsync<byte[]> objectCache = transaction.getBucket(key, ByteArrayCodec.INSTANCE);
+        byte[] payload = encode(dataToSave);
+        if (properties.cleanOnNoUse())
+            objectCache.setAsync(payload, properties.timeUnit().toMillis(properties.time()), TimeUnit.MILLISECONDS);
+        else
+            objectCache.setAsync(payload);
+        transaction.getSet(getIndexKey(dataClass), StringCodec.INSTANCE).addAsync(objectUUID.toString());
+        RFuture<Long> version = null;
+        if (versioned && properties.cleanOnNoUse()) {
+            // Microseconds since the epoch are above every counter that was seeded earlier
+            long seed = System.currentTimeMillis() * 1000;
+            version = transaction.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, EXPIRING_VERSION_SCRIPT, RScript.ReturnType.INTEGER,
+                    List.<Object>of(getVersionKey(dataClass, objectUUID)), String.valueOf(seed), String.valueOf(properties.timeUnit().toMillis(properties.time())));
+        } else if (versioned) {
+            RMapAsync<String, Long> versions = transaction.getMap(getVersionKey(dataClass), StringCodec.INSTANCE);
+            version = versions.addAndGetAsync(objectUUID.toString(), 1L);
+        }
+        transaction.execute();
+        if (properties.cleanOnNoUse())
+            lastTouches.put(key, System.currentTimeMillis());
+        if (nearCache != null)
+            nearCache.written(key, dataToSave);
+        publishInvalidation(key);
+        if (properties.debugMode())
+            NetworkLogger.debug("[RedisCache] Saving to redis cache " + dataClass.getSimpleName() + " [" + key + "]");
+        return version == null ? 0 : version.toCompletableFuture().join();
     }
 
     @Override
     public boolean remove(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         verifyInput(dataClass, objectUUID);
-        RBucket<String> objectCache = getObjectCache(dataClass, objectUUID);
+        String key = getKey(dataClass, objectUUID);
         if (AnnotationResolver.getDataProperties(dataClass).debugMode())
-            NetworkLogger.debug("[RedisCache] Removing from redis cache " + dataClass.getSimpleName() + " [" + objectCache + "]");
-        return objectCache.delete();
+            NetworkLogger.debug("[RedisCache] Removing from redis cache " + dataClass.getSimpleName() + " [" + key + "]");
+
+        RBatch transaction = createTransaction();
+        RFuture<Boolean> deleted = transaction.getBucket(key, StringCodec.INSTANCE).deleteAsync();
+        transaction.getSet(getIndexKey(dataClass), StringCodec.INSTANCE).removeAsync(objectUUID.toString());
+        // The version counter is kept, nodes that still know the old versions must not drop the updates of a recreated object.
+        // Expiring counters expire with their ttl.
+        transaction.execute();
+        lastTouches.invalidate(key);
+        if (nearCache != null)
+            nearCache.invalidate(key);
+        publishInvalidation(key);
+        return Boolean.TRUE.equals(deleted.toCompletableFuture().join());
     }
 
     @Override
     public Set<UUID> getSavedUUIDs(@NotNull Class<? extends IPipelineData> dataClass) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
 
-        return getKeys(dataClass)
-                .stream()
-                .map(s -> parseUUIDWithKey(dataClass, s))
-                .collect(Collectors.toSet());
+        Set<UUID> indexed = new HashSet<>();
+        RSet<String> index = getIndex(dataClass);
+        // SSCAN in pages instead of one SMEMBERS call for large types
+        index.iterator(INDEX_SCAN_COUNT).forEachRemaining(s -> indexed.add(UUID.fromString(s)));
+
+        if (!AnnotationResolver.getDataProperties(dataClass).cleanOnNoUse())
+            return indexed;
+
+        // Expired buckets leave their uuid behind in the index
+        Set<UUID> existing = dataExistBatch(dataClass, indexed);
+        if (existing.size() != indexed.size()) {
+            Set<UUID> stale = new HashSet<>(indexed);
+            stale.removeAll(existing);
+            removeStaleIndexEntries(dataClass, stale);
+        }
+        return existing;
+    }
+
+    /**
+     * Removes index entries whose bucket does not exist. Each entry is checked again in the same script that removes it,
+     * so an object that was written again in the meantime keeps its entry.
+     */
+    private void removeStaleIndexEntries(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> candidates) {
+        RBatch batch = redisConnection.getRedissonClient().createBatch();
+        for (UUID objectUUID : candidates)
+            batch.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, REMOVE_STALE_INDEX_ENTRY_SCRIPT, RScript.ReturnType.INTEGER,
+                    List.<Object>of(getIndexKey(dataClass), getKey(dataClass, objectUUID)), objectUUID.toString());
+        batch.execute();
+    }
+
+    /**
+     * Rebuilds the uuid index of a type from the buckets that are currently stored in redis.
+     * This scans the whole keyspace and is only meant to migrate data that was cached before the index existed.
+     * The index stays readable during the rebuild. Missing entries are added and stale entries are removed one by one.
+     * @param dataClass the data class
+     * @return the number of indexed objects
+     */
+    public int rebuildIndex(@NotNull Class<? extends IPipelineData> dataClass) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        String storageIdentifier = AnnotationResolver.getDataStorageIdentifier(dataClass);
+        String classifier = AnnotationResolver.getDataStorageClassifier(dataClass);
+        String pattern = "VPipeline:" + (classifier.isEmpty() ? "" : classifier + ":") + "*:" + storageIdentifier;
+
+        Set<String> uuids = new HashSet<>();
+        redisConnection.getRedissonClient().getKeys().getKeysStreamByPattern(pattern, INDEX_SCAN_COUNT).forEach(key -> {
+            UUID objectUUID = parseUUIDWithKey(dataClass, key);
+            if (objectUUID != null)
+                uuids.add(objectUUID.toString());
+        });
+
+        RSet<String> index = getIndex(dataClass);
+        Set<UUID> stale = new HashSet<>();
+        index.iterator(INDEX_SCAN_COUNT).forEachRemaining(uuid -> {
+            if (!uuids.contains(uuid))
+                stale.add(UUID.fromString(uuid));
+        });
+        if (!uuids.isEmpty())
+            index.addAll(uuids);
+        if (!stale.isEmpty())
+            removeStaleIndexEntries(dataClass, stale);
+        NetworkLogger.info("[RedisCache] Rebuilt index of " + dataClass.getSimpleName() + " with " + uuids.size() + " entries");
+        return uuids.size();
+    }
+
+    /**
+     * Rebuilds the uuid index of every type registered in the attached pipeline.
+     * @see #rebuildIndex(Class)
+     */
+    public void rebuildIndexes() {
+        attachedPipeline.getAttachedPipeline().getDataRegistry().getAllTypes().forEach(this::rebuildIndex);
+    }
+
+    @Override
+    public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        verifyInput(dataClass, objectUUID);
+        try {
+            return Optional.ofNullable(readParsed(dataClass, objectUUID));
+        } catch (Exception e) {
+            e.printStackTrace();
+            remove(dataClass, objectUUID);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Map<UUID, JsonElement> loadDataBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUIDs, "objectUUIDs can't be null!");
+        Map<UUID, JsonElement> result = new HashMap<>();
+        if (objectUUIDs.isEmpty())
+            return result;
+
+        PipelineDataProperties properties = AnnotationResolver.getDataProperties(dataClass);
+        Map<String, UUID> uuidsByKey = new HashMap<>();
+        for (UUID objectUUID : objectUUIDs) {
+            String key = getKey(dataClass, objectUUID);
+            JsonElement cached = nearCache != null ? nearCache.get(key) : null;
+            if (cached == null) {
+                uuidsByKey.put(key, objectUUID);
+                continue;
+            }
+            result.put(objectUUID, cached);
+            touchAsync(properties, key);
+        }
+        if (uuidsByKey.isEmpty())
+            return result;
+
+        Map<String, Long> readTokens = new HashMap<>();
+        if (nearCache != null)
+            uuidsByKey.keySet().forEach(key -> readTokens.put(key, nearCache.startRead(key)));
+        Map<String, byte[]> values;
+        if (!properties.cleanOnNoUse())
+            // One MGET for all objects
+            values = redisConnection.getRedissonClient().getBuckets(ByteArrayCodec.INSTANCE).get(uuidsByKey.keySet().toArray(new String[0]));
+        else
+            values = readWithTouch(properties, uuidsByKey.keySet());
+
+        values.forEach((key, value) -> {
+            UUID objectUUID = uuidsByKey.get(key);
+            try {
+                JsonElement parsed = JsonParser.parseString(decode(value)).getAsJsonObject();
+                if (nearCache != null)
+                    nearCache.putIfNotInvalidated(key, parsed, readTokens.get(key));
+                result.put(objectUUID, parsed);
+            } catch (Exception e) {
+                e.printStackTrace();
+                remove(dataClass, objectUUID);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Set<UUID> dataExistBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUIDs, "objectUUIDs can't be null!");
+        Set<UUID> result = new HashSet<>();
+        if (objectUUIDs.isEmpty())
+            return result;
+
+        // All EXISTS commands are sent in one pipelined batch
+        RBatch batch = redisConnection.getRedissonClient().createBatch();
+        Map<UUID, RFuture<Boolean>> existenceChecks = new HashMap<>();
+        for (UUID objectUUID : objectUUIDs)
+            existenceChecks.put(objectUUID, batch.getBucket(getKey(dataClass, objectUUID), StringCodec.INSTANCE).isExistsAsync());
+        batch.execute();
+
+        existenceChecks.forEach((objectUUID, future) -> {
+            if (Boolean.TRUE.equals(future.toCompletableFuture().join()))
+                result.add(objectUUID);
+        });
+        return result;
     }
 
     @Override
@@ -92,46 +362,192 @@ public class RedisCache implements GlobalCache {
         return attachedPipeline;
     }
 
-    private RBucket<String> getObjectCache(@Nonnull Class<? extends IPipelineData> dataClass, @Nonnull @NotNull UUID objectUUID) {
+    private RBucket<byte[]> getObjectCache(@Nonnull Class<? extends IPipelineData> dataClass, @Nonnull @NotNull UUID objectUUID) {
         verifyInput(dataClass, objectUUID);
 
-        String classifier = AnnotationResolver
-                .getDataStorageClassifier(dataClass)
-                .isEmpty() ? "" : AnnotationResolver.getDataStorageClassifier(dataClass) + ":";
-        String key = "VPipeline:" + classifier + objectUUID + ":" + AnnotationResolver.getDataStorageIdentifier(dataClass);
+        return redisConnection.getRedissonClient().getBucket(getKey(dataClass, objectUUID), ByteArrayCodec.INSTANCE);
+    }
 
-        RBucket<String> objectCache = redisConnection.getRedissonClient().getBucket(key, new StringCodec());
-        updateExpireTime(dataClass, objectCache);
+    /**
+     * Reads the value of an object. The ttl of cleanOnNoUse types is refreshed with the same GETEX command,
+     * but at most once per {@link PipelineDataProperties#touchIntervalMillis()}.
+     */
+    private String read(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        PipelineDataProperties properties = AnnotationResolver.getDataProperties(dataClass);
+        RBucket<byte[]> objectCache = getObjectCache(dataClass, objectUUID);
+        if (!properties.cleanOnNoUse() || !shouldTouch(properties, objectCache.getName()))
+            return decode(objectCache.get());
+        if (getExSupported) {
+            try {
+                return decode(objectCache.getAndExpire(getTimeToLive(properties)));
+            } catch (RedisException e) {
+                if (!isUnknownCommand(e))
+                    throw e;
+                disableGetEx();
+            }
+        }
+        byte[] value = objectCache.get();
+        if (value != null)
+            objectCache.expire(getTimeToLive(properties));
+        return decode(value);
+    }
 
-        return objectCache;
+    /**
+     * Values are stored as compact json, compressed above the threshold of {@link PayloadCompression}
+     */
+    private byte[] encode(@NotNull JsonElement dataToSave) {
+        return PayloadCompression.compress(dataToSave.toString().getBytes(StandardCharsets.UTF_8), attachedPipeline.getAttachedPipeline().getMetrics());
     }
 
-    private Set<String> getKeys(Class<? extends IPipelineData> dataClass) {
-        Objects.requireNonNull(dataClass, "dataClass can't be null!");
-        String storageIdentifier = AnnotationResolver.getDataStorageIdentifier(dataClass);
-        String classifier = AnnotationResolver.getDataStorageClassifier(dataClass);
-        return redisConnection.getRedissonClient().getKeys().getKeysStream().filter(s -> {
-            String[] parts = s.split(":");
-            if (parts[0].equalsIgnoreCase("lock"))
-                return false;
+    @Nullable
+    private static String decode(@Nullable byte[] value) {
+        if (value == null)
+            return null;
+        return new String(PayloadCompression.decompress(value), StandardCharsets.UTF_8);
+    }
 
-            if (classifier.isEmpty())
-                return parts[2].equals(storageIdentifier);
-            else
-                return parts[1].equals(classifier) && parts[3].equals(storageIdentifier);
+    private static boolean isUnknownCommand(@NotNull Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase().contains("unknown command"))
+                return true;
+        }
+        return false;
+    }
 
-        }).collect(Collectors.toSet());
+    private void disableGetEx() {
+        getExSupported = false;
+        NetworkLogger.warning("[RedisCache] The redis server does not support GETEX (requires redis 6.2), falling back to GET and EXPIRE");
     }
 
-    private void updateExpireTime(@NotNull Class<? extends IPipelineData> dataClass, RBucket<?> bucket) {
-        Objects.requireNonNull(dataClass, "dataClass can't be null!");
-        PipelineDataProperties properties = AnnotationResolver.getDataProperties(dataClass);
+    /**
+     * Reads several values in one pipelined batch of GET and GETEX commands, depending on which keys are due for a ttl refresh
+     */
+    private Map<String, byte[]> readWithTouch(@NotNull PipelineDataProperties properties, @NotNull Collection<String> keys) {
+        boolean useGetEx = getExSupported;
+        RBatch batch = redisConnection.getRedissonClient().createBatch();
+        Map<String, RFuture<byte[]>> reads = new HashMap<>();
+        for (String key : keys) {
+            RBucketAsync<byte[]> bucket = batch.getBucket(key, ByteArrayCodec.INSTANCE);
+            if (!shouldTouch(properties, key))
+                reads.put(key, bucket.getAsync());
+            else if (useGetEx)
+                reads.put(key, bucket.getAndExpireAsync(getTimeToLive(properties)));
+            else {
+                reads.put(key, bucket.getAsync());
+                bucket.expireAsync(getTimeToLive(properties));
+            }
+        }
+        Map<String, byte[]> values = new HashMap<>();
+        try {
+            batch.execute();
+            reads.forEach((key, future) -> {
+                byte[] value = future.toCompletableFuture().join();
+                if (value != null)
+                    values.put(key, value);
+            });
+        } catch (RuntimeException e) {
+            if (!useGetEx || !isUnknownCommand(e))
+                throw e;
+            disableGetEx();
+            keys.forEach(lastTouches::invalidate);
+            return readWithTouch(properties, keys);
+        }
+        return values;
+    }
 
-        if (bucket == null)
+    /**
+     * Reads and parses the value of an object, preferring the near cache if enabled.
+     */
+    @Nullable
+    private JsonElement readParsed(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        if (nearCache == null) {
+            String value = read(dataClass, objectUUID);
+            return value != null ? JsonParser.parseString(value).getAsJsonObject() : null;
+        }
+        String key = getKey(dataClass, objectUUID);
+        JsonElement cached = nearCache.get(key);
+        if (cached != null) {
+            touchAsync(AnnotationResolver.getDataProperties(dataClass), key);
+            return cached;
+        }
+        long readToken = nearCache.startRead(key);
+        String value = read(dataClass, objectUUID);
+        if (value == null)
+            return null;
+        JsonElement parsed = JsonParser.parseString(value).getAsJsonObject();
+        nearCache.putIfNotInvalidated(key, parsed, readToken);
+        return parsed;
+    }
+
+    /**
+     * Reads served by the near cache do not reach redis, so the ttl is refreshed without waiting for the reply
+     */
+    private void touchAsync(@NotNull PipelineDataProperties properties, @NotNull String key) {
+        if (!properties.cleanOnNoUse() || !shouldTouch(properties, key))
             return;
+        redisConnection.getRedissonClient().getBucket(key, StringCodec.INSTANCE).expireAsync(getTimeToLive(properties)).thenAccept(exists -> {
+            // The value expired in redis while it was still held by the near cache
+            if (!exists && nearCache != null)
+                nearCache.invalidate(key);
+        });
+    }
 
-        if (properties.cleanOnNoUse())
-            bucket.expire(java.time.Duration.ofSeconds(properties.timeUnit().toSeconds(properties.time())));
+    /**
+     * Other instances might hold the key in their near cache even if this instance has none
+     */
+    private void publishInvalidation(@NotNull String key) {
+        RTopic topic = invalidationTopic;
+        if (topic != null)
+            RedisNearCache.publishInvalidation(topic, instanceUUID, key);
+    }
+
+    private boolean shouldTouch(@NotNull PipelineDataProperties properties, @NotNull String key) {
+        long now = System.currentTimeMillis();
+        Long lastTouch = lastTouches.getIfPresent(key);
+        if (lastTouch != null && now - lastTouch < properties.touchIntervalMillis())
+            return false;
+        lastTouches.put(key, now);
+        return true;
+    }
+
+    private Duration getTimeToLive(@NotNull PipelineDataProperties properties) {
+        return Duration.ofMillis(properties.timeUnit().toMillis(properties.time()));
+    }
+
+    private String getKey(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        String classifier = AnnotationResolver
+                .getDataStorageClassifier(dataClass)
+                .isEmpty() ? "" : AnnotationResolver.getDataStorageClassifier(dataClass) + ":";
+        return "VPipeline:" + classifier + objectUUID + ":" + AnnotationResolver.getDataStorageIdentifier(dataClass);
+    }
+
+    private String getIndexKey(@NotNull Class<? extends IPipelineData> dataClass) {
+        String classifier = AnnotationResolver
+                .getDataStorageClassifier(dataClass)
+                .isEmpty() ? "" : AnnotationResolver.getDataStorageClassifier(dataClass) + ":";
+        return "VPipeline:Index:" + classifier + AnnotationResolver.getDataStorageIdentifier(dataClass);
+    }
+
+    private String getVersionKey(@NotNull Class<? extends IPipelineData> dataClass) {
+        String classifier = AnnotationResolver
+                .getDataStorageClassifier(dataClass)
+                .isEmpty() ? "" : AnnotationResolver.getDataStorageClassifier(dataClass) + ":";
+        return "VPipeline:Versions:" + classifier + AnnotationResolver.getDataStorageIdentifier(dataClass);
+    }
+
+    /**
+     * The key ends with the uuid, so it is not matched by the pattern of {@link #rebuildIndex(Class)}
+     */
+    private String getVersionKey(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        return getVersionKey(dataClass) + ":" + objectUUID;
+    }
+
+    private RSet<String> getIndex(@NotNull Class<? extends IPipelineData> dataClass) {
+        return redisConnection.getRedissonClient().getSet(getIndexKey(dataClass), StringCodec.INSTANCE);
+    }
+
+    private RBatch createTransaction() {
+        return redisConnection.getRedissonClient().createBatch(BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC));
     }
 
     private void verifyInput(@Nonnull Class<? extends IPipelineData> dataClass, @Nonnull @NotNull UUID objectUUID) {
@@ -142,11 +558,17 @@ public class RedisCache implements GlobalCache {
     @Override
     public void connect() {
         this.redisConnection.connect();
+        this.invalidationTopic = RedisNearCache.getInvalidationTopic(redisConnection.getRedissonClient());
+        if (nearCache != null)
+            nearCache.connect(redisConnection.getRedissonClient());
         NetworkLogger.info("Redis GlobalCache connected");
     }
 
     @Override
     public void disconnect() {
+        this.invalidationTopic = null;
+        if (nearCache != null)
+            nearCache.disconnect();
         this.redisConnection.disconnect();
     }
 
@@ -169,17 +591,26 @@ public class RedisCache implements GlobalCache {
         return redissonClient.getReadWriteLock("lock:" + storageIdentifier + ":" + objectUUID).writeLock();
     }*/
 
+    @Nullable
     private UUID parseUUIDWithKey(Class<? extends IPipelineData> dataClass, String key) {
         String classifier = AnnotationResolver.getDataStorageClassifier(dataClass);
-        var uuidString = "";
-        if (classifier.isEmpty())
-            uuidString = key.split(":")[1];
-        else
-            uuidString = key.split(":")[2];
-        return UUID.fromString(uuidString);
+        String[] parts = key.split(":");
+        int uuidIndex = classifier.isEmpty() ? 1 : 2;
+        if (parts.length <= uuidIndex)
+            return null;
+        try {
+            return UUID.fromString(parts[uuidIndex]);
+        } catch (IllegalArgumentException e) {
+            // Other keys like the index itself match the scan pattern as well
+            return null;
+        }
     }
 
     public RedisConnection getRedisConnection() {
         return redisConnection;
     }
+
+    public int getNearCacheSize() {
+        return nearCacheSize;
+    }
 }
@@ -0,0 +1,156 @@
+package de.verdox.vpipeline.api.pipeline.parts.cache.global;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonElement;
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.util.WireFormat;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.ByteArrayCodec;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+/**
+ * A bounded in memory cache of parsed redis values in front of a {@link RedisCache}.
+ * <p>
+ * Every {@link RedisCache} publishes the keys it writes or removes on an invalidation topic, no matter if it has a near cache itself,
+ * and all near caches of other instances drop their copy.
+ * Pub/sub delivery is at most once, so entries additionally expire after {@link #MAX_STALENESS_SECONDS}
+ * and the whole cache is cleared whenever the topic is (re)subscribed.
+ */
+final class RedisNearCache {
+    static final String INVALIDATION_TOPIC = "VPipeline:NearCacheInvalidation";
+    private static final long MAX_STALENESS_SECONDS = 300;
+    private static final int INVALIDATION_STRIPES = 256;
+
+    private final UUID instanceUUID;
+    private final Cache<String, JsonElement> entries;
+    // Incremented on every invalidation of a key of the stripe, so that reads racing with an invalidation do not cache the old value.
+    // Invalidations of other keys only affect reads of the same stripe.
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private RTopic invalidationTopic;
+    private int messageListenerId = -1;
+    private int statusListenerId = -1;
+
+    /**
+     * @param instanceUUID the uuid the owning cache publishes its invalidations with, its own invalidations are ignored
+     */
+    RedisNearCache(@NotNull UUID instanceUUID, int maximumSize) {
+        Objects.requireNonNull(instanceUUID, "instanceUUID can't be null!");
+        this.instanceUUID = instanceUUID;
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("maximumSize must be positive");
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(MAX_STALENESS_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    void connect(@NotNull RedissonClient redissonClient) {
+        Objects.requireNonNull(redissonClient, "redissonClient can't be null!");
+        if (invalidationTopic != null)
+            return;
+        invalidationTopic = getInvalidationTopic(redissonClient);
+        messageListenerId = invalidationTopic.addListener(byte[].class, (channel, message) -> {
+            try {
+                WireFormat.Reader reader = new WireFormat.Reader(message);
+                if (reader.readUUID().equals(instanceUUID))
+                    return;
+                invalidate(reader.readString());
+            } catch (Exception e) {
+                NetworkLogger.getLogger().log(Level.WARNING, "Could not read near cache invalidation", e);
+            }
+        });
+        statusListenerId = invalidationTopic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                // Invalidations might have been missed while the subscription was down
+                for (int i = 0; i < INVALIDATION_STRIPES; i++)
+                    invalidations.incrementAndGet(i);
+                entries.invalidateAll();
+            }
+        });
+    }
+
+    void disconnect() {
+        if (invalidationTopic == null)
+            return;
+        invalidationTopic.removeListener(messageListenerId, statusListenerId);
+        invalidationTopic = null;
+        entries.invalidateAll();
+    }
+
+    /**
+     * Returns a copy of the cached value of a key
+     * @param key the redis key
+     * @return the value or null if it is not cached
+     */
+    @Nullable
+    JsonElement get(@NotNull String key) {
+        JsonElement cached = entries.getIfPresent(key);
+        return cached != null ? cached.deepCopy() : null;
+    }
+
+    boolean contains(@NotNull String key) {
+        return entries.getIfPresent(key) != null;
+    }
+
+    /**
+     * Returns a token that has to be passed to {@link #putIfNotInvalidated(String, JsonElement, long)} after the value of the key was read from redis
+     */
+    long startRead(@NotNull String key) {
+        return invalidations.get(stripe(key));
+    }
+
+    void putIfNotInvalidated(@NotNull String key, @NotNull JsonElement value, long readToken) {
+        if (invalidations.get(stripe(key)) != readToken)
+            return;
+        entries.put(key, value.deepCopy());
+    }
+
+    /**
+     * Stores the value this node has just written
+     */
+    void written(@NotNull String key, @NotNull JsonElement value) {
+        invalidate(key);
+        entries.put(key, value.deepCopy());
+    }
+
+    /**
+     * Drops the cached value of a key
+     */
+    void invalidate(@NotNull String key) {
+        invalidations.incrementAndGet(stripe(key));
+        entries.invalidate(key);
+    }
+
+    /**
+     * Tells the near caches of all other instances to drop their copy of a key
+     * @param invalidationTopic the topic returned by {@link #getInvalidationTopic(RedissonClient)}
+     * @param senderUUID the uuid of the instance that changed the key
+     * @param key the redis key
+     */
+    static void publishInvalidation(@NotNull RTopic invalidationTopic, @NotNull UUID senderUUID, @NotNull String key) {
+        invalidationTopic.publishAsync(new WireFormat.Writer(key.length() + 24)
+                .writeUUID(senderUUID)
+                .writeString(key)
+                .toByteArray());
+    }
+
+    static RTopic getInvalidationTopic(@NotNull RedissonClient redissonClient) {
+        return redissonClient.getTopic(INVALIDATION_TOPIC, ByteArrayCodec.INSTANCE);
+    }
+
+    private static int stripe(@NotNull String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+}
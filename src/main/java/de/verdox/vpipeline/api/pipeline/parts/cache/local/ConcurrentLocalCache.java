@@ -0,0 +1,321 @@
+package de.verdox.vpipeline.api.pipeline.parts.cache.local;
+
+import com.google.common.util.concurrent.Striped;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.modules.AttachedPipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.datatypes.PipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.LocalCache;
+import de.verdox.vpipeline.api.util.AnnotationResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link LocalCache} that keeps one concurrent map per data class.
+ * <p>
+ * Reads are lock-free. Mutations of a single object are serialized by a striped lock that is selected by the type and uuid of the object,
+ * so writes to one object never block reads or writes of unrelated objects.
+ * <p>
+ * Cached objects are evicted in the background. Types with {@link de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties#cleanOnNoUse()}
+ * are evicted after being idle for the configured time, and the least recently used objects are evicted when more than maxEntries objects are cached.
+ * Local only data is never evicted.
+ */
+public class ConcurrentLocalCache implements LocalCache {
+    public static final int DEFAULT_STRIPES = Runtime.getRuntime().availableProcessors() * 16;
+    private final Map<Class<? extends IPipelineData>, Map<UUID, IPipelineData>> cache = new ConcurrentHashMap<>();
+    private final Map<Class<? extends IPipelineData>, Map<UUID, DataAccess<IPipelineData>>> cachedAccess = new ConcurrentHashMap<>();
+    private final Map<Class<? extends IPipelineData>, Map<UUID, Set<DataSubscriber<? extends IPipelineData, ?>>>> subscribers = new ConcurrentHashMap<>();
+    private final AttachedPipeline attachedPipeline;
+    private final Striped<Lock> objectLocks;
+    private final LocalCacheEvictor evictor;
+
+    public ConcurrentLocalCache() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes the amount of locks that are shared between all cached objects
+     */
+    public ConcurrentLocalCache(int stripes) {
+        this(stripes, -1, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a cache that evicts the least recently used objects when more than maxEntries objects are cached
+     * @param maxEntries the maximum amount of cached objects
+     * @return the cache
+     */
+    public static ConcurrentLocalCache withMaxEntries(long maxEntries) {
+        if (maxEntries < 0)
+            throw new IllegalArgumentException("maxEntries can't be negative");
+        return new ConcurrentLocalCache(DEFAULT_STRIPES, maxEntries, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param stripes            the amount of locks that are shared between all cached objects
+     * @param maxEntries         the maximum amount of cached objects before the least recently used objects are evicted. -1 for no limit
+     * @param evictionInterval   the delay between two eviction runs
+     * @param evictionTimeUnit   the time unit of the eviction interval
+     */
+    public ConcurrentLocalCache(int stripes, long maxEntries, long evictionInterval, @NotNull TimeUnit evictionTimeUnit) {
+        this(stripes, maxEntries, evictionInterval, evictionTimeUnit, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the time in milliseconds that idle times are measured against
+     */
+    public ConcurrentLocalCache(int stripes, long maxEntries, long evictionInterval, @NotNull TimeUnit evictionTimeUnit, @NotNull LongSupplier clock) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("stripes must be greater than 0");
+        if (evictionInterval <= 0)
+            throw new IllegalArgumentException("evictionInterval must be greater than 0");
+        Objects.requireNonNull(evictionTimeUnit, "evictionTimeUnit can't be null!");
+        Objects.requireNonNull(clock, "clock can't be null!");
+        this.objectLocks = Striped.lock(stripes);
+        this.attachedPipeline = new AttachedPipeline(GsonBuilder::create);
+        this.evictor = new LocalCacheEvictor(this, maxEntries, evictionInterval, evictionTimeUnit, clock);
+        NetworkLogger.info("Concurrent Local Cache initialized");
+    }
+
+    @Override
+    public JsonElement loadData(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        IPipelineData data = loadObject(dataClass, objectUUID);
+        if (data == null)
+            return null;
+        return data.serialize();
+    }
+
+    @Override
+    public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        return Optional.ofNullable(loadData(dataClass, objectUUID));
+    }
+
+    @Override
+    public <S extends IPipelineData> void saveObject(@NotNull S object) {
+        Objects.requireNonNull(object, "object can't be null!");
+        Lock lock = getObjectLock(object.getClass(), object.getObjectUUID());
+        lock.lock();
+        try {
+            IPipelineData replaced = getTypeCache(object.getClass()).put(object.getObjectUUID(), object);
+            if (replaced != null && replaced != object) {
+                removeCachedAccess(replaced.getClass(), replaced.getObjectUUID());
+                replaced.onDelete();
+            }
+            notifySubscribers(object);
+            object.updateLastUsage();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+        Map<UUID, IPipelineData> typeCache = cache.get(dataClass);
+        return typeCache != null && typeCache.containsKey(objectUUID);
+    }
+
+    @Override
+    public void save(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement dataToSave) {
+        Lock lock = getObjectLock(dataClass, objectUUID);
+        lock.lock();
+        try {
+            IPipelineData foundData = loadObject(dataClass, objectUUID);
+            if (foundData == null)
+                foundData = instantiateData(dataClass, objectUUID);
+            foundData.updateLastUsage();
+            foundData.deserialize(dataToSave);
+            saveObject(foundData);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+        Map<UUID, IPipelineData> typeCache = cache.get(dataClass);
+        if (typeCache == null)
+            return false;
+        Lock lock = getObjectLock(dataClass, objectUUID);
+        lock.lock();
+        try {
+            IPipelineData data = typeCache.remove(objectUUID);
+            if (data == null)
+                return false;
+            removeCachedAccess(dataClass, objectUUID);
+            data.onDelete();
+            if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                NetworkLogger.debug("[LocalCache] Removed " + data + " [" + objectUUID + "]");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Set<UUID> getSavedUUIDs(@NotNull Class<? extends IPipelineData> dataClass) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Map<UUID, IPipelineData> typeCache = cache.get(dataClass);
+        if (typeCache == null)
+            return new HashSet<>();
+        return Collections.unmodifiableSet(typeCache.keySet());
+    }
+
+    @Nullable
+    @Override
+    public <S extends IPipelineData> S loadObject(@NotNull Class<? extends S> dataClass, @NotNull UUID objectUUID) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+        Map<UUID, IPipelineData> typeCache = cache.get(dataClass);
+        if (typeCache == null)
+            return null;
+        IPipelineData data = typeCache.get(objectUUID);
+        if (data == null)
+            return null;
+        data.updateLastUsage();
+        return dataClass.cast(data);
+    }
+
+    @Override
+    public <S extends IPipelineData> Set<S> loadAllData(@NotNull Class<? extends S> dataClass) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Map<UUID, IPipelineData> typeCache = cache.get(dataClass);
+        if (typeCache == null)
+            return new HashSet<>();
+        return typeCache
+                .values()
+                .stream()
+                .peek(IPipelineData::updateLastUsage)
+                .map(dataClass::cast)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public <S extends IPipelineData> S instantiateData(@NotNull Class<? extends S> dataClass, @NotNull UUID objectUUID) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+        S existing = loadObject(dataClass, objectUUID);
+        if (existing != null)
+            return existing;
+
+        if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+            NetworkLogger.debug("[LocalCache] Instantiated new data " + dataClass.getSimpleName() + " [" + objectUUID + "]");
+        return PipelineData.instantiateData(attachedPipeline.getAttachedPipeline(), dataClass, objectUUID);
+    }
+
+    @Override
+    public <S extends IPipelineData> DataAccess<S> createAccess(@NotNull Class<? extends S> dataClass, @NotNull UUID objectUUID) {
+        if (!dataExist(dataClass, objectUUID))
+            throw new IllegalArgumentException("No object in local cache with dataClass " + dataClass + " and uuid " + objectUUID);
+
+        return (DataAccess<S>) cachedAccess.computeIfAbsent(dataClass, aClass -> new ConcurrentHashMap<>()).computeIfAbsent(objectUUID, uuid -> {
+            Lock objectReadLock = getAttachedPipeline().getAttachedPipeline().getNetworkDataLockingService().getReadLock(dataClass, objectUUID);
+            Lock objectWriteLock = getAttachedPipeline().getAttachedPipeline().getNetworkDataLockingService().getWriteLock(dataClass, objectUUID);
+            return new DataAccess<>(this, dataClass, objectUUID, objectReadLock, objectWriteLock);
+        });
+    }
+
+    @Override
+    public <T extends IPipelineData> void subscribe(@NotNull Class<? extends T> dataClass, @NotNull UUID objectUUID, DataSubscriber<T, ?> subscriber) {
+        subscriber.linkToLocalCache(dataClass, objectUUID);
+        T data = loadObject(dataClass, objectUUID);
+        if (data != null) {
+            subscriber.update(data);
+        }
+        subscribers.computeIfAbsent(dataClass, aClass -> new ConcurrentHashMap<>())
+                .computeIfAbsent(objectUUID, uuid -> ConcurrentHashMap.newKeySet())
+                .add(subscriber);
+    }
+
+    @Override
+    public <T extends IPipelineData> void removeSubscriber(DataSubscriber<T, ?> subscriber) {
+        if (subscriber.getDataClass() == null || subscriber.getObjectUUID() == null)
+            return;
+        Set<DataSubscriber<? extends IPipelineData, ?>> subscriberSet = getSubscribers(subscriber.getDataClass(), subscriber.getObjectUUID());
+        if (subscriberSet == null)
+            return;
+        subscriberSet.remove(subscriber);
+        subscriber.unlinkFromLocalCache();
+    }
+
+    @Override
+    public <T extends IPipelineData> void notifySubscribers(T updatedObject) {
+        Set<DataSubscriber<? extends IPipelineData, ?>> subscriberSet = getSubscribers(updatedObject.getClass(), updatedObject.getObjectUUID());
+        if (subscriberSet == null)
+            return;
+        for (DataSubscriber<? extends IPipelineData, ?> dataSubscriber : subscriberSet)
+            dataSubscriber.update(updatedObject);
+    }
+
+    @Override
+    public <T extends IPipelineData> boolean hasDataSubscribers(@NotNull Class<? extends T> dataClass, @NotNull UUID objectUUID) {
+        Set<DataSubscriber<? extends IPipelineData, ?>> subscriberSet = getSubscribers(dataClass, objectUUID);
+        return subscriberSet != null && !subscriberSet.isEmpty();
+    }
+
+    @Override
+    public AttachedPipeline getAttachedPipeline() {
+        return attachedPipeline;
+    }
+
+    /**
+     * Evicts idle objects and objects over capacity now instead of waiting for the next background run
+     */
+    public void evictExpired() {
+        evictor.run();
+    }
+
+    @Override
+    public void shutdown() {
+        evictor.shutdown();
+    }
+
+    Map<Class<? extends IPipelineData>, Map<UUID, IPipelineData>> getCachedTypes() {
+        return cache;
+    }
+
+    /**
+     * Returns the cached object without marking it as used
+     */
+    @Nullable
+    IPipelineData peekObject(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Map<UUID, IPipelineData> typeCache = cache.get(dataClass);
+        if (typeCache == null)
+            return null;
+        return typeCache.get(objectUUID);
+    }
+
+    private Map<UUID, IPipelineData> getTypeCache(@NotNull Class<? extends IPipelineData> dataClass) {
+        return cache.computeIfAbsent(dataClass, aClass -> new ConcurrentHashMap<>());
+    }
+
+    @Nullable
+    private Set<DataSubscriber<? extends IPipelineData, ?>> getSubscribers(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Map<UUID, Set<DataSubscriber<? extends IPipelineData, ?>>> typeSubscribers = subscribers.get(dataClass);
+        if (typeSubscribers == null)
+            return null;
+        return typeSubscribers.get(objectUUID);
+    }
+
+    private void removeCachedAccess(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Map<UUID, DataAccess<IPipelineData>> typeAccess = cachedAccess.get(dataClass);
+        if (typeAccess != null)
+            typeAccess.remove(objectUUID);
+    }
+
+    private Lock getObjectLock(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        return objectLocks.get(31 * dataClass.hashCode() + objectUUID.hashCode());
+    }
+}
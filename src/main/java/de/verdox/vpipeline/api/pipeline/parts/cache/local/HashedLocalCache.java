@@ -42,6 +42,11 @@ public class HashedLocalCache implements LocalCache {
         }
     }
 
+    @Override
+    public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        return Optional.ofNullable(loadData(dataClass, objectUUID));
+    }
+
     @Override
     public <S extends IPipelineData> void saveObject(@NotNull S object) {
         Objects.requireNonNull(object, "object can't be null!");
@@ -0,0 +1,130 @@
+package de.verdox.vpipeline.api.pipeline.parts.cache.local;
+
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.enums.DataContext;
+import de.verdox.vpipeline.api.util.AnnotationResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+/**
+ * Evicts objects from a {@link ConcurrentLocalCache} on a background thread.
+ * <p>
+ * Two policies are applied on every run:
+ * <ul>
+ *     <li>Idle expiry: objects of types with {@link PipelineDataProperties#cleanOnNoUse()} are evicted when they were not used for {@link PipelineDataProperties#time()}</li>
+ *     <li>Capacity: if more than maxEntries objects are cached the least recently used ones are evicted</li>
+ * </ul>
+ * Evicted objects are saved to the global cache and the global storage before they are dropped from the local cache. They are not pushed to other network nodes.
+ * Objects with data subscribers or with a write lock held by someone else are skipped until the next run. Local only data is never evicted because it can't be restored.
+ */
+class LocalCacheEvictor {
+    private final ConcurrentLocalCache localCache;
+    private final long maxEntries;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    LocalCacheEvictor(@NotNull ConcurrentLocalCache localCache, long maxEntries, long interval, @NotNull TimeUnit timeUnit, @NotNull LongSupplier clock) {
+        this.localCache = localCache;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VPipeline-LocalCache-Eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::run, interval, interval, timeUnit);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Runs one eviction pass on the calling thread
+     */
+    synchronized void run() {
+        try {
+            Pipeline pipeline = localCache.getAttachedPipeline().getAttachedPipeline();
+            if (!pipeline.isReady())
+                return;
+            evictIdle(pipeline);
+            if (maxEntries >= 0)
+                evictOverCapacity(pipeline);
+        } catch (Throwable e) {
+            NetworkLogger.getLogger().log(Level.WARNING, "Error while evicting data from local cache", e);
+        }
+    }
+
+    private void evictIdle(@NotNull Pipeline pipeline) {
+        long now = clock.getAsLong();
+        for (Map.Entry<Class<? extends IPipelineData>, Map<UUID, IPipelineData>> typeEntry : localCache.getCachedTypes().entrySet()) {
+            PipelineDataProperties properties = AnnotationResolver.getDataProperties(typeEntry.getKey());
+            if (!properties.cleanOnNoUse() || properties.dataContext().equals(DataContext.LOCAL))
+                continue;
+            long maxIdleMillis = properties.timeUnit().toMillis(properties.time());
+            for (IPipelineData data : typeEntry.getValue().values()) {
+                if (now - data.getLastUsage() >= maxIdleMillis)
+                    evict(pipeline, typeEntry.getKey(), data, data.getLastUsage());
+            }
+        }
+    }
+
+    private void evictOverCapacity(@NotNull Pipeline pipeline) {
+        List<IPipelineData> candidates = new ArrayList<>();
+        long size = 0;
+        for (Map.Entry<Class<? extends IPipelineData>, Map<UUID, IPipelineData>> typeEntry : localCache.getCachedTypes().entrySet()) {
+            size += typeEntry.getValue().size();
+            // Local only data can't be restored after eviction
+            if (AnnotationResolver.getDataProperties(typeEntry.getKey()).dataContext().equals(DataContext.LOCAL))
+                continue;
+            candidates.addAll(typeEntry.getValue().values());
+        }
+        long toEvict = size - maxEntries;
+        if (toEvict <= 0)
+            return;
+
+        candidates.sort(Comparator.comparingLong(IPipelineData::getLastUsage));
+        for (IPipelineData data : candidates) {
+            if (toEvict <= 0)
+                break;
+            if (evict(pipeline, data.getClass(), data, data.getLastUsage()))
+                toEvict--;
+        }
+    }
+
+    private boolean evict(@NotNull Pipeline pipeline, @NotNull Class<? extends IPipelineData> dataClass, @NotNull IPipelineData data, long observedLastUsage) {
+        UUID uuid = data.getObjectUUID();
+        if (localCache.hasDataSubscribers(dataClass, uuid))
+            return false;
+        Lock writeLock = pipeline.getNetworkDataLockingService().getWriteLock(dataClass, uuid);
+        if (!writeLock.tryLock())
+            return false;
+        try {
+            // The object could have been used or replaced while we were waiting for the lock
+            if (localCache.peekObject(dataClass, uuid) != data || data.getLastUsage() != observedLastUsage)
+                return false;
+            if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                NetworkLogger.debug("[LocalCache] Evicting " + dataClass.getSimpleName() + " [" + uuid + "]");
+            data.onCleanUp();
+            // The object is only dropped locally, so the other nodes do not need an update
+            pipeline.getPipelineSynchronizer().persist(dataClass, uuid);
+            return localCache.remove(dataClass, uuid);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
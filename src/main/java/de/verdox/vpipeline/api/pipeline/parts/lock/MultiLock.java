@@ -0,0 +1,100 @@
+package de.verdox.vpipeline.api.pipeline.parts.lock;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Holds the locks of several objects as one lock.
+ * The locks are acquired one after another in the order they were passed and released in reverse order.
+ * Multi locks that pass their locks in the same global order, e.g. sorted by uuid, can't deadlock each other.
+ */
+public class MultiLock implements Lock {
+    protected final List<? extends Lock> locks;
+
+    public MultiLock(@NotNull List<? extends Lock> locks) {
+        Objects.requireNonNull(locks, "locks can't be null!");
+        this.locks = List.copyOf(locks);
+    }
+
+    @Override
+    public void lock() {
+        List<Lock> acquired = new ArrayList<>();
+        try {
+            for (Lock lock : locks) {
+                lock.lock();
+                acquired.add(lock);
+            }
+        } catch (Throwable e) {
+            unlockAll(acquired);
+            throw e;
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        List<Lock> acquired = new ArrayList<>();
+        try {
+            for (Lock lock : locks) {
+                lock.lockInterruptibly();
+                acquired.add(lock);
+            }
+        } catch (Throwable e) {
+            unlockAll(acquired);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        List<Lock> acquired = new ArrayList<>();
+        for (Lock lock : locks) {
+            if (!lock.tryLock()) {
+                unlockAll(acquired);
+                return false;
+            }
+            acquired.add(lock);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, @NotNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        List<Lock> acquired = new ArrayList<>();
+        try {
+            for (Lock lock : locks) {
+                if (!lock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    unlockAll(acquired);
+                    return false;
+                }
+                acquired.add(lock);
+            }
+        } catch (Throwable e) {
+            unlockAll(acquired);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        unlockAll(locks);
+    }
+
+    @NotNull
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("A multi lock has no conditions");
+    }
+
+    private static void unlockAll(@NotNull List<? extends Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--)
+            locks.get(i).unlock();
+    }
+}
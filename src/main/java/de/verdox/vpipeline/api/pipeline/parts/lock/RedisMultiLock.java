@@ -0,0 +1,80 @@
+package de.verdox.vpipeline.api.pipeline.parts.lock;
+
+import org.jetbrains.annotations.NotNull;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link MultiLock} of redis locks that needs one round trip to acquire or release all locks if none of them is contended.
+ * <p>
+ * All locks are first tried at once without waiting. If one of them is held by someone else the acquired ones are released again
+ * and the locks are acquired one after another in order like a {@link MultiLock}.
+ * This costs two more round trips than the ordered acquisition in the contended case.
+ */
+class RedisMultiLock extends MultiLock {
+    private final List<RLock> redisLocks;
+
+    RedisMultiLock(@NotNull List<RLock> locks) {
+        super(locks);
+        this.redisLocks = List.copyOf(locks);
+    }
+
+    @Override
+    public void lock() {
+        if (tryLockAll())
+            return;
+        super.lock();
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (tryLockAll())
+            return;
+        super.lockInterruptibly();
+    }
+
+    @Override
+    public boolean tryLock() {
+        return tryLockAll();
+    }
+
+    @Override
+    public void unlock() {
+        releaseAll(redisLocks);
+    }
+
+    private boolean tryLockAll() {
+        long threadId = Thread.currentThread().getId();
+        List<RFuture<Boolean>> attempts = new ArrayList<>(redisLocks.size());
+        for (RLock lock : redisLocks)
+            attempts.add(lock.tryLockAsync(threadId));
+
+        List<RLock> acquired = new ArrayList<>();
+        RuntimeException error = null;
+        for (int i = 0; i < attempts.size(); i++) {
+            try {
+                if (attempts.get(i).toCompletableFuture().join())
+                    acquired.add(redisLocks.get(i));
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        if (error == null && acquired.size() == redisLocks.size())
+            return true;
+        releaseAll(acquired);
+        if (error != null)
+            throw error;
+        return false;
+    }
+
+    private static void releaseAll(@NotNull List<RLock> locks) {
+        long threadId = Thread.currentThread().getId();
+        List<RFuture<Void>> releases = new ArrayList<>(locks.size());
+        for (RLock lock : locks)
+            releases.add(lock.unlockAsync(threadId));
+        releases.forEach(release -> release.toCompletableFuture().join());
+    }
+}
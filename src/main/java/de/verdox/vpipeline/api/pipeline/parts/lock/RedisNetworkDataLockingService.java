@@ -8,7 +8,10 @@ import de.verdox.vpipeline.impl.util.RedisConnection;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vserializer.generic.SerializerBuilder;
 import org.jetbrains.annotations.NotNull;
+import org.redisson.api.RedissonClient;
 
+import java.util.Collection;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.locks.Lock;
 
@@ -33,6 +36,24 @@ public class RedisNetworkDataLockingService implements NetworkDataLockingService
         return this.redisConnection.getRedissonClient().getReadWriteLock(getLockName(type, uuid)).writeLock();
     }
 
+    /**
+     * Acquires all locks with one round trip if none of them is contended
+     */
+    @Override
+    public <T extends IPipelineData> Lock getReadLocks(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids) {
+        RedissonClient redissonClient = this.redisConnection.getRedissonClient();
+        return new RedisMultiLock(new TreeSet<>(uuids).stream().map(uuid -> redissonClient.getReadWriteLock(getLockName(type, uuid)).readLock()).toList());
+    }
+
+    /**
+     * Acquires all locks with one round trip if none of them is contended
+     */
+    @Override
+    public <T extends IPipelineData> Lock getWriteLocks(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids) {
+        RedissonClient redissonClient = this.redisConnection.getRedissonClient();
+        return new RedisMultiLock(new TreeSet<>(uuids).stream().map(uuid -> redissonClient.getReadWriteLock(getLockName(type, uuid)).writeLock()).toList());
+    }
+
     private <T extends IPipelineData> String getLockName(@NotNull Class<? extends T> type, @NotNull UUID uuid){
         String classifier = AnnotationResolver
                 .getDataStorageClassifier(type)
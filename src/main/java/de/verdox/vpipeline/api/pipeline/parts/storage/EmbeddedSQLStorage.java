@@ -0,0 +1,71 @@
+package de.verdox.vpipeline.api.pipeline.parts.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import de.verdox.vserializer.SerializableField;
+import de.verdox.vserializer.generic.Serializer;
+import de.verdox.vserializer.generic.SerializerBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A {@link SQLStorage} that keeps its data in a local H2 or SQLite database file.
+ * The driver of the database has to be on the classpath.
+ */
+public class EmbeddedSQLStorage extends JdbcStorage {
+    public static final Serializer<EmbeddedSQLStorage> SERIALIZER = SerializerBuilder.create("embedded_sql_storage", EmbeddedSQLStorage.class)
+            .constructor(
+                    new SerializableField<>("path", Serializer.Primitive.STRING, embeddedSQLStorage -> embeddedSQLStorage.path.toString()),
+                    new SerializableField<>("dialect", Serializer.Primitive.STRING, embeddedSQLStorage -> embeddedSQLStorage.getDialect().name()),
+                    (path, dialect) -> new EmbeddedSQLStorage(Path.of(path), SqlDialect.byName(dialect))
+            )
+            .build();
+
+    private final Path path;
+
+    public EmbeddedSQLStorage(@NotNull Path path, @NotNull SqlDialect dialect) {
+        this(path, dialect, DEFAULT_WRITE_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param path           the database file
+     * @param dialect        {@link SqlDialect#H2} or {@link SqlDialect#SQLITE}
+     * @param writeBatchSize the amount of rows written with one JDBC batch
+     * @param fetchSize      the amount of rows fetched at once when a whole table is read
+     */
+    public EmbeddedSQLStorage(@NotNull Path path, @NotNull SqlDialect dialect, int writeBatchSize, int fetchSize) {
+        super(createConfig(path, dialect), dialect, writeBatchSize, fetchSize);
+        this.path = path;
+    }
+
+    /**
+     * @throws IllegalStateException if the driver of the database is not on the classpath
+     */
+    @Override
+    public void connect() {
+        String driverClass = getDialect().embeddedDriverClass();
+        try {
+            Class.forName(driverClass);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The " + getDialect() + " driver " + driverClass + " is not on the classpath. Add it to use the embedded sql storage", e);
+        }
+        super.connect();
+    }
+
+    private static HikariConfig createConfig(@NotNull Path path, @NotNull SqlDialect dialect) {
+        Objects.requireNonNull(path, "path can't be null!");
+        Objects.requireNonNull(dialect, "dialect can't be null!");
+        if (!dialect.isEmbedded())
+            throw new IllegalArgumentException(dialect + " is not an embedded database");
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(dialect.embeddedJdbcUrl(path));
+        // SQLite only allows one writer at a time
+        hikariConfig.setMaximumPoolSize(dialect == SqlDialect.SQLITE ? 1 : 4);
+        return hikariConfig;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,105 @@
+package de.verdox.vpipeline.api.pipeline.parts.storage;
+
+import com.google.gson.GsonBuilder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import de.verdox.vpipeline.api.modules.AttachedPipeline;
+import de.verdox.vserializer.SerializableField;
+import de.verdox.vserializer.generic.Serializer;
+import de.verdox.vserializer.generic.SerializerBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link SQLStorage} that reaches its database through a hikari connection pool.
+ * The driver of the database has to be on the classpath.
+ */
+public class JdbcStorage extends SQLStorage {
+    public static final Serializer<JdbcStorage> SERIALIZER = SerializerBuilder.create("jdbc_storage", JdbcStorage.class)
+            .constructor(
+                    new SerializableField<>("dialect", Serializer.Primitive.STRING, jdbcStorage -> jdbcStorage.getDialect().name()),
+                    new SerializableField<>("jdbc_url", Serializer.Primitive.STRING, jdbcStorage -> Objects.toString(jdbcStorage.hikariConfig.getJdbcUrl(), "")),
+                    new SerializableField<>("user", Serializer.Primitive.STRING, jdbcStorage -> Objects.toString(jdbcStorage.hikariConfig.getUsername(), "")),
+                    new SerializableField<>("password", Serializer.Primitive.STRING, jdbcStorage -> Objects.toString(jdbcStorage.hikariConfig.getPassword(), "")),
+                    (dialect, jdbcUrl, user, password) -> {
+                        HikariConfig hikariConfig = new HikariConfig();
+                        hikariConfig.setJdbcUrl(jdbcUrl);
+                        hikariConfig.setUsername(user);
+                        hikariConfig.setPassword(password);
+                        return new JdbcStorage(hikariConfig, SqlDialect.byName(dialect), DEFAULT_WRITE_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+                    }
+            )
+            .build();
+
+    private final HikariConfig hikariConfig;
+    private final AttachedPipeline attachedPipeline;
+    private HikariDataSource hikariDataSource;
+
+    public JdbcStorage(@NotNull HikariConfig hikariConfig, @NotNull SqlDialect dialect) {
+        this(hikariConfig, dialect, DEFAULT_WRITE_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param dialect        the sql dialect of the database
+     * @param writeBatchSize the amount of rows written with one JDBC batch
+     * @param fetchSize      the amount of rows fetched at once when a whole table is read
+     */
+    public JdbcStorage(@NotNull HikariConfig hikariConfig, @NotNull SqlDialect dialect, int writeBatchSize, int fetchSize) {
+        super(dialect, writeBatchSize, fetchSize);
+        Objects.requireNonNull(hikariConfig, "hikariConfig can't be null!");
+        this.hikariConfig = hikariConfig;
+        dialect.configure(hikariConfig);
+        this.attachedPipeline = new AttachedPipeline(GsonBuilder::create);
+    }
+
+    @Override
+    public void connect() {
+        // The tables might not exist in the database that is connected now
+        clearCreatedTables();
+        this.hikariDataSource = new HikariDataSource(hikariConfig);
+    }
+
+    @Override
+    public void disconnect() {
+        this.hikariDataSource.close();
+    }
+
+    @Override
+    public @NotNull Connection connection() {
+        try {
+            return this.hikariDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to retrieve connection from pool", e);
+        }
+    }
+
+    @Override
+    public int executeUpdate(@NotNull String query, @NotNull Object... objects) {
+        return withConnection(connection -> update(connection, query, objects), -1);
+    }
+
+    @Override
+    public <T> T executeQuery(@NotNull String query, @NotNull Function<ResultSet, T> callback, @Nullable T def, @NotNull Object... objects) {
+        return withConnection(connection -> query(connection, query, callback::apply, objects), def);
+    }
+
+    @Override
+    public AttachedPipeline getAttachedPipeline() {
+        return attachedPipeline;
+    }
+
+    @Override
+    public void shutdown() {
+        this.hikariDataSource.close();
+    }
+
+    public HikariConfig getHikariConfig() {
+        return hikariConfig;
+    }
+}
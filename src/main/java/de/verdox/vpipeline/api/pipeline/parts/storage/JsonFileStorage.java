@@ -15,8 +15,10 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -50,6 +52,22 @@ public class JsonFileStorage implements GlobalStorage {
         }
     }
 
+    @Override
+    public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+
+        Path path = getFilePath(dataClass, objectUUID);
+        try (BufferedReader bufferedReader = Files.newBufferedReader(path)) {
+            return Optional.of(JsonParser.parseReader(bufferedReader));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
     @Override
     public boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
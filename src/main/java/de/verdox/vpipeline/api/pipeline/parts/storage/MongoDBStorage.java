@@ -5,7 +5,16 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.mongodb.*;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
 import de.verdox.vpipeline.api.Connection;
 import de.verdox.vpipeline.api.NetworkLogger;
 import de.verdox.vpipeline.api.modules.AttachedPipeline;
@@ -21,11 +30,24 @@ import de.verdox.vserializer.json.JsonSerializerContext;
 import org.bson.Document;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Stores every type in its own collection. Documents are identified by their objectUUID field, which has a unique index.
+ * <p>
+ * Batches are written with unordered bulk writes and read with $in queries, both in chunks of a configurable size.
+ */
 public class MongoDBStorage implements GlobalStorage, Connection {
     public static final Serializer<MongoDBStorage> SERIALIZER = SerializerBuilder.create("mongo_db_storage", MongoDBStorage.class)
             .constructor(
@@ -39,6 +61,8 @@ public class MongoDBStorage implements GlobalStorage, Connection {
             )
             .build();
     public static final JsonSerializerContext JSON_SERIALIZER_CONTEXT = new JsonSerializerContext();
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
 
     private MongoClient mongoClient;
     private MongoDatabase mongoDatabase;
@@ -50,9 +74,27 @@ public class MongoDBStorage implements GlobalStorage, Connection {
     private final AttachedPipeline attachedPipeline;
     private final String url;
     private final BsonSerializerContext bsonSerializerContext = new BsonSerializerContext();
+    // Collections whose objectUUID index was already ensured, so it is only created once per type
+    private final Set<String> indexedCollections = ConcurrentHashMap.newKeySet();
+    private final int writeBatchSize;
+    private final int fetchSize;
     //private final CodecRegistry codecRegistry;
 
     public MongoDBStorage(String host, String database, int port, String user, String password, String url) {
+        this(host, database, port, user, password, url, DEFAULT_WRITE_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param writeBatchSize the amount of documents written with one bulk write
+     * @param fetchSize      the amount of uuids of one $in query and the amount of documents fetched at once
+     */
+    public MongoDBStorage(String host, String database, int port, String user, String password, String url, int writeBatchSize, int fetchSize) {
+        if (writeBatchSize <= 0)
+            throw new IllegalArgumentException("writeBatchSize has to be positive");
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("fetchSize has to be positive");
+        this.writeBatchSize = writeBatchSize;
+        this.fetchSize = fetchSize;
         this.url = url;
         Objects.requireNonNull(host, "host can't be null!");
         Objects.requireNonNull(database, "database can't be null!");
@@ -84,21 +126,64 @@ public class MongoDBStorage implements GlobalStorage, Connection {
         if (mongoDBData == null)
             mongoDBData = filter;
 
-        mongoDBData.remove("_id");
-
-        SerializationElement bsonElement = bsonSerializerContext.toElement(attachedPipeline.getGson().toJsonTree(mongoDBData));
-        return ((JsonSerializationElement) JSON_SERIALIZER_CONTEXT.convert(bsonElement, true)).getJsonElement();
+        return toJson(mongoDBData);
     }
 
     @Override
-    public boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+    public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
 
-        Document document = getMongoStorage(dataClass, getSuffix(dataClass))
+        Document mongoDBData = getMongoStorage(dataClass, getSuffix(dataClass))
                 .find(new Document("objectUUID", objectUUID.toString()))
                 .first();
-        return document != null;
+        return mongoDBData == null ? Optional.empty() : Optional.of(toJson(mongoDBData));
+    }
+
+    @Override
+    public Map<UUID, JsonElement> loadDataBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUIDs, "objectUUIDs can't be null!");
+
+        Map<UUID, JsonElement> result = new HashMap<>();
+        if (objectUUIDs.isEmpty())
+            return result;
+
+        MongoCollection<Document> collection = getMongoStorage(dataClass, getSuffix(dataClass));
+        for (List<String> chunk : chunks(toStrings(objectUUIDs), fetchSize)) {
+            for (Document document : collection.find(Filters.in("objectUUID", chunk)).batchSize(fetchSize))
+                result.put(UUID.fromString(document.getString("objectUUID")), toJson(document));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<UUID> dataExistBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUIDs, "objectUUIDs can't be null!");
+
+        Set<UUID> result = new HashSet<>();
+        if (objectUUIDs.isEmpty())
+            return result;
+
+        MongoCollection<Document> collection = getMongoStorage(dataClass, getSuffix(dataClass));
+        for (List<String> chunk : chunks(toStrings(objectUUIDs), fetchSize)) {
+            for (Document document : collection
+                    .find(Filters.in("objectUUID", chunk))
+                    .projection(Projections.include("objectUUID"))
+                    .batchSize(fetchSize))
+                result.add(UUID.fromString(document.getString("objectUUID")));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+
+        return getMongoStorage(dataClass, getSuffix(dataClass))
+                .countDocuments(new Document("objectUUID", objectUUID.toString()), new CountOptions().limit(1)) > 0;
     }
 
     @Override
@@ -111,17 +196,58 @@ public class MongoDBStorage implements GlobalStorage, Connection {
 
         MongoCollection<Document> collection = getMongoStorage(dataClass, getSuffix(dataClass));
 
-        String json = attachedPipeline.getGson().toJson(bsonSerializerContext.toElement(dataToSave).getJsonElement());
+        // One round trip that inserts the document or replaces the existing one
+        collection.replaceOne(filter, toDocument(objectUUID, dataToSave), new ReplaceOptions().upsert(true));
+    }
 
-        Document data = Document.parse(json);
+    /**
+     * Saves all documents with unordered bulk writes of {@link #getWriteBatchSize()} upserts.
+     *
+     * @throws IllegalStateException if a bulk write failed
+     */
+    @Override
+    public void saveBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Map<UUID, JsonElement> dataToSave) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(dataToSave, "dataToSave can't be null!");
+        if (dataToSave.isEmpty())
+            return;
 
-        if (collection.find(filter).first() == null) {
-            Document newData = new Document("objectUUID", objectUUID.toString());
-            newData.putAll(data);
-            collection.insertOne(newData);
-        } else {
-            Document updateFunc = new Document("$set", data);
-            collection.updateOne(filter, updateFunc);
+        MongoCollection<Document> collection = getMongoStorage(dataClass, getSuffix(dataClass));
+        ReplaceOptions upsert = new ReplaceOptions().upsert(true);
+        // Every uuid is written once, so the server may apply the writes in any order
+        BulkWriteOptions unordered = new BulkWriteOptions().ordered(false);
+        List<ReplaceOneModel<Document>> models = new ArrayList<>(Math.min(dataToSave.size(), writeBatchSize));
+        try {
+            for (Map.Entry<UUID, JsonElement> entry : dataToSave.entrySet()) {
+                models.add(new ReplaceOneModel<>(new Document("objectUUID", entry.getKey().toString()), toDocument(entry.getKey(), entry.getValue()), upsert));
+                if (models.size() == writeBatchSize) {
+                    collection.bulkWrite(models, unordered);
+                    models.clear();
+                }
+            }
+            if (!models.isEmpty())
+                collection.bulkWrite(models, unordered);
+        } catch (MongoException e) {
+            throw new IllegalStateException("Could not save " + dataToSave.size() + " documents of " + dataClass.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Reads the whole collection of a type with one cursor that fetches {@link #getFetchSize()} documents at once.
+     */
+    @Override
+    public void loadAll(@NotNull Class<? extends IPipelineData> dataClass, @NotNull BiConsumer<UUID, JsonElement> consumer) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(consumer, "consumer can't be null!");
+
+        try (MongoCursor<Document> cursor = getMongoStorage(dataClass, getSuffix(dataClass))
+                .find(Filters.exists("objectUUID"))
+                .batchSize(fetchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                consumer.accept(UUID.fromString(document.getString("objectUUID")), toJson(document));
+            }
         }
     }
 
@@ -132,15 +258,11 @@ public class MongoDBStorage implements GlobalStorage, Connection {
 
         Document filter = new Document("objectUUID", objectUUID.toString());
 
-        if (!dataExist(dataClass, objectUUID))
-            return true;
-
         MongoCollection<Document> collection = getMongoStorage(dataClass, getSuffix(dataClass));
 
-        var result = collection.deleteOne(filter).getDeletedCount() >= 1;
-        if (!result)
-            NetworkLogger.getLogger().warning("Could not delete data from MongoDB");
-        return result;
+        // Deleting a document that does not exist is not an error
+        collection.deleteOne(filter);
+        return true;
     }
 
     @Override
@@ -148,11 +270,10 @@ public class MongoDBStorage implements GlobalStorage, Connection {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         MongoCollection<Document> collection = getMongoStorage(dataClass, getSuffix(dataClass));
         Set<UUID> uuids = new HashSet<>();
-        for (Document document : collection.find()) {
-            if (!document.containsKey("objectUUID"))
-                continue;
-            uuids.add(UUID.fromString((String) document.get("objectUUID")));
-        }
+        for (Document document : collection
+                .find(Filters.exists("objectUUID"))
+                .projection(Projections.fields(Projections.include("objectUUID"), Projections.excludeId())))
+            uuids.add(UUID.fromString(document.getString("objectUUID")));
         return uuids;
     }
 
@@ -161,11 +282,61 @@ public class MongoDBStorage implements GlobalStorage, Connection {
         return attachedPipeline;
     }
 
+    private JsonElement toJson(@NotNull Document mongoDBData) {
+        mongoDBData.remove("_id");
+        SerializationElement bsonElement = bsonSerializerContext.toElement(attachedPipeline.getGson().toJsonTree(mongoDBData));
+        return ((JsonSerializationElement) JSON_SERIALIZER_CONTEXT.convert(bsonElement, true)).getJsonElement();
+    }
+
+    private Document toDocument(@NotNull UUID objectUUID, @NotNull JsonElement dataToSave) {
+        String json = attachedPipeline.getGson().toJson(bsonSerializerContext.toElement(dataToSave).getJsonElement());
+        Document document = new Document("objectUUID", objectUUID.toString());
+        document.putAll(Document.parse(json));
+        return document;
+    }
+
+    private static List<String> toStrings(@NotNull Collection<UUID> objectUUIDs) {
+        return objectUUIDs.stream().map(UUID::toString).toList();
+    }
+
+    private static List<List<String>> chunks(@NotNull List<String> values, int chunkSize) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += chunkSize)
+            chunks.add(values.subList(i, Math.min(values.size(), i + chunkSize)));
+        return chunks;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
     private MongoCollection<Document> getMongoStorage(@NotNull Class<? extends IPipelineData> dataClass, @NotNull String suffix) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         Objects.requireNonNull(suffix, "suffix can't be null!");
         String storagePath = getStoragePath(dataClass, suffix, "");
-        return getCollection(storagePath);
+        MongoCollection<Document> collection = getCollection(storagePath);
+        if (!indexedCollections.contains(storagePath)) {
+            ensureIndex(collection, storagePath);
+            indexedCollections.add(storagePath);
+        }
+        return collection;
+    }
+
+    /**
+     * Creates the unique index on objectUUID. Creating an index that already exists does nothing.
+     */
+    private static void ensureIndex(@NotNull MongoCollection<Document> collection, @NotNull String name) {
+        try {
+            collection.createIndex(Indexes.ascending("objectUUID"), new IndexOptions().unique(true));
+        } catch (MongoException e) {
+            // Older collections may already contain duplicates
+            NetworkLogger.warning("Could not create a unique objectUUID index on " + name + ", falling back to a non unique index: " + e.getMessage());
+            collection.createIndex(Indexes.ascending("objectUUID"));
+        }
     }
 
     private com.mongodb.client.MongoCollection<Document> getCollection(@NotNull String name) {
@@ -197,6 +368,8 @@ public class MongoDBStorage implements GlobalStorage, Connection {
         }
         NetworkLogger.info("Searching for database " + database + " in MongoDB storage...");
         this.mongoDatabase = mongoClient.getDatabase(database);
+        // The collections might not be indexed in the database that is connected now
+        indexedCollections.clear();
         NetworkLogger.info("MongoDB GlobalStorage connected");
     }
 
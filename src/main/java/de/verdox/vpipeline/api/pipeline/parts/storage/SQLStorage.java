@@ -9,37 +9,83 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
+/**
+ * Stores every type in its own table with the uuid as primary key and the document as json column.
+ * The syntax of the statements is provided by a {@link SqlDialect}.
+ * <p>
+ * Tables are created the first time a type is used. Every operation checks out one connection of the pool and runs all its statements on it.
+ */
 public abstract class SQLStorage implements GlobalStorage {
 
     protected static final String TABLE_COLUMN_KEY = "UUID";
     protected static final String TABLE_COLUMN_VAL = "Document";
+    /**
+     * Maximum amount of uuids bound to a single IN (...) query
+     */
+    protected static final int MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    // Tables that were already created by this storage, so the DDL only runs once per type
+    private final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+    private final SqlDialect dialect;
+    private final int writeBatchSize;
+    private final int fetchSize;
+
+    protected SQLStorage() {
+        this(SqlDialect.MYSQL, DEFAULT_WRITE_BATCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param dialect        the sql dialect of the database
+     * @param writeBatchSize the amount of rows sent to the database with one JDBC batch and committed together
+     * @param fetchSize      the amount of rows fetched at once when a whole table is read
+     */
+    protected SQLStorage(@NotNull SqlDialect dialect, int writeBatchSize, int fetchSize) {
+        Objects.requireNonNull(dialect, "dialect can't be null!");
+        this.dialect = dialect;
+        if (writeBatchSize <= 0)
+            throw new IllegalArgumentException("writeBatchSize has to be positive");
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("fetchSize has to be positive");
+        this.writeBatchSize = writeBatchSize;
+        this.fetchSize = fetchSize;
+    }
 
     @Override
     public JsonElement loadData(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
 
-        return executeQuery(
-                String.format("SELECT %s FROM `%s` WHERE %s = ?", TABLE_COLUMN_VAL, tableName(dataClass), TABLE_COLUMN_KEY),
-                resultSet -> {
-                    try {
-                        return resultSet.next() ? JsonParser.parseString(resultSet.getString(TABLE_COLUMN_VAL)) : null;
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                        return null;
-                    }
-                },
-                null,
+        return withConnection(connection -> query(
+                connection,
+                String.format("SELECT %s FROM %s WHERE %s = ?", TABLE_COLUMN_VAL, tableName(connection, dataClass), TABLE_COLUMN_KEY),
+                resultSet -> resultSet.next() ? JsonParser.parseString(resultSet.getString(TABLE_COLUMN_VAL)) : null,
                 objectUUID.toString()
-        );
+        ), null);
+    }
+
+    @Override
+    public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        // loadData already answers with null if no row was found
+        return Optional.ofNullable(loadData(dataClass, objectUUID));
     }
 
     @Override
@@ -47,18 +93,12 @@ public abstract class SQLStorage implements GlobalStorage {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
 
-        return executeQuery(
-                String.format("SELECT %s FROM `%s` WHERE %s = ?", TABLE_COLUMN_KEY, tableName(dataClass), TABLE_COLUMN_KEY),
-                resultSet -> {
-                    try {
-                        return resultSet.next();
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                        return false;
-                    }
-                },
-                false,
-                objectUUID.toString());
+        return withConnection(connection -> query(
+                connection,
+                String.format("SELECT %s FROM %s WHERE %s = ?", TABLE_COLUMN_KEY, tableName(connection, dataClass), TABLE_COLUMN_KEY),
+                ResultSet::next,
+                objectUUID.toString()
+        ), false);
     }
 
     @Override
@@ -67,17 +107,8 @@ public abstract class SQLStorage implements GlobalStorage {
         Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
         Objects.requireNonNull(dataToSave, "dataToSave can't be null!");
 
-        if (!dataExist(dataClass, objectUUID)) {
-            executeUpdate(
-                    "INSERT INTO `" + tableName(dataClass) + "` (" + TABLE_COLUMN_KEY + "," + TABLE_COLUMN_VAL + ") VALUES (?, ?);",
-                    objectUUID.toString(), dataToSave
-            );
-        } else {
-            executeUpdate(
-                    "UPDATE `" + tableName(dataClass) + "` SET " + TABLE_COLUMN_VAL + "=? WHERE " + TABLE_COLUMN_KEY + "=?",
-                    dataToSave, objectUUID.toString()
-            );
-        }
+        // One statement instead of an existence check followed by an insert or update
+        withConnection(connection -> update(connection, upsertQuery(tableName(connection, dataClass)), objectUUID.toString(), dataToSave), -1);
     }
 
     @Override
@@ -85,48 +116,246 @@ public abstract class SQLStorage implements GlobalStorage {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
         Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
 
-        return executeUpdate(
-                String.format("DELETE FROM `%s` WHERE %s = ?", tableName(dataClass), TABLE_COLUMN_KEY),
+        return withConnection(connection -> update(
+                connection,
+                String.format("DELETE FROM %s WHERE %s = ?", tableName(connection, dataClass), TABLE_COLUMN_KEY),
                 objectUUID.toString()
-        ) != -1;
+        ), -1) != -1;
     }
 
     @Override
     public Set<UUID> getSavedUUIDs(@NotNull Class<? extends IPipelineData> dataClass) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
 
-        return executeQuery(
-                String.format("SELECT %s FROM `%s`;", TABLE_COLUMN_KEY, tableName(dataClass)),
+        return withConnection(connection -> query(
+                connection,
+                String.format("SELECT %s FROM %s;", TABLE_COLUMN_KEY, tableName(connection, dataClass)),
                 resultSet -> {
                     Set<UUID> keys = new HashSet<>();
-                    try {
-                        while (resultSet.next()) {
-                            keys.add(UUID.fromString(resultSet.getString(TABLE_COLUMN_KEY)));
-                        }
-                    } catch (SQLException e) {
-                        e.printStackTrace();
+                    while (resultSet.next())
+                        keys.add(UUID.fromString(resultSet.getString(TABLE_COLUMN_KEY)));
+                    return keys;
+                }), new HashSet<>());
+    }
+
+    /**
+     * Saves all documents with JDBC batches of {@link #getWriteBatchSize()} upserts. Every batch is committed on its own.
+     *
+     * @throws IllegalStateException if a batch could not be written
+     */
+    @Override
+    public void saveBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Map<UUID, JsonElement> dataToSave) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(dataToSave, "dataToSave can't be null!");
+        if (dataToSave.isEmpty())
+            return;
+
+        try (Connection connection = connection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(upsertQuery(tableName(connection, dataClass)))) {
+                int pending = 0;
+                for (Map.Entry<UUID, JsonElement> entry : dataToSave.entrySet()) {
+                    statement.setString(1, entry.getKey().toString());
+                    statement.setString(2, entry.getValue().toString());
+                    statement.addBatch();
+                    if (++pending == writeBatchSize) {
+                        statement.executeBatch();
+                        connection.commit();
+                        pending = 0;
                     }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not save " + dataToSave.size() + " documents of " + dataClass.getSimpleName(), e);
+        }
+    }
 
-                    return keys;
-                }, new HashSet<>());
+    /**
+     * Reads the whole table of a type with one query. Rows are fetched in pages of {@link #getFetchSize()} if the driver supports it.
+     */
+    @Override
+    public void loadAll(@NotNull Class<? extends IPipelineData> dataClass, @NotNull BiConsumer<UUID, JsonElement> consumer) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(consumer, "consumer can't be null!");
+
+        withConnection(connection -> {
+            String query = String.format("SELECT %s, %s FROM %s", TABLE_COLUMN_KEY, TABLE_COLUMN_VAL, tableName(connection, dataClass));
+            // The postgresql driver only uses a cursor inside a transaction
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next())
+                        consumer.accept(UUID.fromString(resultSet.getString(TABLE_COLUMN_KEY)), JsonParser.parseString(resultSet.getString(TABLE_COLUMN_VAL)));
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        }, null);
     }
 
-    private String tableName(@NotNull Class<? extends IPipelineData> dataClass) {
+    @Override
+    public Map<UUID, JsonElement> loadDataBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
-        var name = AnnotationResolver.getDataStorageIdentifier(dataClass);
-        createTableIfNotExists(dataClass, name);
-        return name;
+        Objects.requireNonNull(objectUUIDs, "objectUUIDs can't be null!");
+
+        // All chunks share one connection
+        return withConnection(connection -> {
+            String table = tableName(connection, dataClass);
+            Map<UUID, JsonElement> result = new HashMap<>();
+            for (List<UUID> chunk : chunks(objectUUIDs)) {
+                result.putAll(query(
+                        connection,
+                        String.format("SELECT %s, %s FROM %s WHERE %s IN (%s)", TABLE_COLUMN_KEY, TABLE_COLUMN_VAL, table, TABLE_COLUMN_KEY, placeholders(chunk.size())),
+                        resultSet -> {
+                            Map<UUID, JsonElement> found = new HashMap<>();
+                            while (resultSet.next())
+                                found.put(UUID.fromString(resultSet.getString(TABLE_COLUMN_KEY)), JsonParser.parseString(resultSet.getString(TABLE_COLUMN_VAL)));
+                            return found;
+                        },
+                        chunk.stream().map(UUID::toString).toArray()
+                ));
+            }
+            return result;
+        }, new HashMap<>());
+    }
+
+    @Override
+    public Set<UUID> dataExistBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null!");
+        Objects.requireNonNull(objectUUIDs, "objectUUIDs can't be null!");
+
+        return withConnection(connection -> {
+            String table = tableName(connection, dataClass);
+            Set<UUID> result = new HashSet<>();
+            for (List<UUID> chunk : chunks(objectUUIDs)) {
+                result.addAll(query(
+                        connection,
+                        String.format("SELECT %s FROM %s WHERE %s IN (%s)", TABLE_COLUMN_KEY, table, TABLE_COLUMN_KEY, placeholders(chunk.size())),
+                        resultSet -> {
+                            Set<UUID> found = new HashSet<>();
+                            while (resultSet.next())
+                                found.add(UUID.fromString(resultSet.getString(TABLE_COLUMN_KEY)));
+                            return found;
+                        },
+                        chunk.stream().map(UUID::toString).toArray()
+                ));
+            }
+            return result;
+        }, new HashSet<>());
     }
 
-    private void createTableIfNotExists(@NotNull Class<? extends IPipelineData> dataClass, @NotNull String name) {
+    private static List<List<UUID>> chunks(@NotNull Collection<UUID> objectUUIDs) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        List<UUID> current = new ArrayList<>(MAX_BATCH_SIZE);
+        for (UUID objectUUID : objectUUIDs) {
+            current.add(objectUUID);
+            if (current.size() == MAX_BATCH_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>(MAX_BATCH_SIZE);
+            }
+        }
+        if (!current.isEmpty())
+            chunks.add(current);
+        return chunks;
+    }
+
+    private static String placeholders(int amount) {
+        return String.join(", ", Collections.nCopies(amount, "?"));
+    }
+
+    /**
+     * Returns the table of a type and creates it with the given connection the first time the type is used
+     */
+    protected String tableName(@NotNull Connection connection, @NotNull Class<? extends IPipelineData> dataClass) throws SQLException {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
-        Objects.requireNonNull(name, "name can't be null!");
-        executeUpdate(String.format(
-                "CREATE TABLE IF NOT EXISTS `%s` (%s VARCHAR(64) PRIMARY KEY, %s JSON);",
-                name,
-                TABLE_COLUMN_KEY,
-                TABLE_COLUMN_VAL
-        ));
+        var name = AnnotationResolver.getDataStorageIdentifier(dataClass);
+        var table = dialect.quote(name);
+        if (!createdTables.contains(name)) {
+            update(connection, createTableQuery(table));
+            createdTables.add(name);
+        }
+        return table;
+    }
+
+    /**
+     * Forgets which tables were created, for example after the storage connected to another database
+     */
+    protected void clearCreatedTables() {
+        createdTables.clear();
+    }
+
+    /**
+     * @param table the quoted table name
+     */
+    protected String createTableQuery(@NotNull String table) {
+        return dialect.createTableQuery(table, TABLE_COLUMN_KEY, TABLE_COLUMN_VAL);
+    }
+
+    /**
+     * Returns a statement that inserts a row or replaces the document of an existing row. The parameters are the uuid and the document.
+     * @param table the quoted table name
+     */
+    protected String upsertQuery(@NotNull String table) {
+        return dialect.upsertQuery(table, TABLE_COLUMN_KEY, TABLE_COLUMN_VAL);
+    }
+
+    /**
+     * Runs several statements with one connection of the pool
+     * @param action the statements
+     * @param def the result if the statements fail
+     * @return the result of the action
+     */
+    protected <T> T withConnection(@NotNull SqlAction<T> action, @Nullable T def) {
+        try (Connection connection = connection()) {
+            return action.apply(connection);
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+            return def;
+        }
+    }
+
+    protected static int update(@NotNull Connection connection, @NotNull String query, @NotNull Object... objects) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            for (int i = 0; i < objects.length; i++)
+                statement.setString(i + 1, Objects.toString(objects[i]));
+            return statement.executeUpdate();
+        }
+    }
+
+    protected static <T> T query(@NotNull Connection connection, @NotNull String query, @NotNull SqlResultHandler<T> callback, @NotNull Object... objects) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            for (int i = 0; i < objects.length; i++)
+                statement.setString(i + 1, Objects.toString(objects[i]));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return callback.apply(resultSet);
+            }
+        }
+    }
+
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
     }
 
     @NotNull
@@ -140,4 +369,14 @@ public abstract class SQLStorage implements GlobalStorage {
             @Nullable T def,
             @NotNull Object... objects
     );
+
+    @FunctionalInterface
+    protected interface SqlAction<T> {
+        T apply(@NotNull Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    protected interface SqlResultHandler<T> {
+        T apply(@NotNull ResultSet resultSet) throws SQLException;
+    }
 }
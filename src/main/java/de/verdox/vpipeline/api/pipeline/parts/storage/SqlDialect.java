@@ -0,0 +1,205 @@
+package de.verdox.vpipeline.api.pipeline.parts.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * The statements of a {@link SQLStorage} that differ between databases.
+ * <p>
+ * Every dialect creates the document column with a type its database can read back as string and saves documents with the native upsert of the database.
+ */
+public enum SqlDialect {
+    MYSQL {
+        @Override
+        public String quote(@NotNull String identifier) {
+            return "`" + identifier + "`";
+        }
+
+        @Override
+        public String createTableQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("CREATE TABLE IF NOT EXISTS %s (%s VARCHAR(64) PRIMARY KEY, %s JSON);", table, keyColumn, valueColumn);
+        }
+
+        @Override
+        public String upsertQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("INSERT INTO %s (%s, %s) VALUES (?, ?) ON DUPLICATE KEY UPDATE %s = VALUES(%s);", table, keyColumn, valueColumn, valueColumn, valueColumn);
+        }
+
+        /**
+         * Lets the driver reuse prepared statements, rewrite batches to multi row statements and respect the fetch size with server side cursors
+         */
+        @Override
+        public void configure(@NotNull HikariConfig hikariConfig) {
+            String jdbcUrl = hikariConfig.getJdbcUrl();
+            if (jdbcUrl == null || !(jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:")))
+                return;
+            Properties properties = hikariConfig.getDataSourceProperties();
+            properties.putIfAbsent("cachePrepStmts", "true");
+            properties.putIfAbsent("prepStmtCacheSize", "250");
+            properties.putIfAbsent("prepStmtCacheSqlLimit", "2048");
+            properties.putIfAbsent("useServerPrepStmts", "true");
+            properties.putIfAbsent("rewriteBatchedStatements", "true");
+            properties.putIfAbsent("useCursorFetch", "true");
+        }
+    },
+    POSTGRESQL {
+        @Override
+        public String createTableQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("CREATE TABLE IF NOT EXISTS %s (%s VARCHAR(64) PRIMARY KEY, %s JSONB);", table, keyColumn, valueColumn);
+        }
+
+        @Override
+        public String upsertQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            // Documents are bound as strings
+            return String.format("INSERT INTO %s (%s, %s) VALUES (?, CAST(? AS JSONB)) ON CONFLICT (%s) DO UPDATE SET %s = EXCLUDED.%s;", table, keyColumn, valueColumn, keyColumn, valueColumn, valueColumn);
+        }
+
+        @Override
+        public void configure(@NotNull HikariConfig hikariConfig) {
+            hikariConfig.getDataSourceProperties().putIfAbsent("reWriteBatchedInserts", "true");
+        }
+    },
+    H2 {
+        @Override
+        public String createTableQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("CREATE TABLE IF NOT EXISTS %s (%s VARCHAR(64) PRIMARY KEY, %s CLOB);", table, keyColumn, valueColumn);
+        }
+
+        @Override
+        public String upsertQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("MERGE INTO %s (%s, %s) KEY (%s) VALUES (?, ?);", table, keyColumn, valueColumn, keyColumn);
+        }
+
+        @Override
+        public boolean isEmbedded() {
+            return true;
+        }
+
+        @Override
+        public String embeddedJdbcUrl(@NotNull Path file) {
+            return "jdbc:h2:file:" + file.toAbsolutePath();
+        }
+
+        @Override
+        public String embeddedDriverClass() {
+            return "org.h2.Driver";
+        }
+    },
+    SQLITE {
+        @Override
+        public String createTableQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("CREATE TABLE IF NOT EXISTS %s (%s VARCHAR(64) PRIMARY KEY, %s TEXT);", table, keyColumn, valueColumn);
+        }
+
+        @Override
+        public String upsertQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn) {
+            return String.format("INSERT INTO %s (%s, %s) VALUES (?, ?) ON CONFLICT (%s) DO UPDATE SET %s = excluded.%s;", table, keyColumn, valueColumn, keyColumn, valueColumn, valueColumn);
+        }
+
+        /**
+         * Readers do not block the writer and concurrent writers wait for each other instead of failing
+         */
+        @Override
+        public void configure(@NotNull HikariConfig hikariConfig) {
+            Properties properties = hikariConfig.getDataSourceProperties();
+            properties.putIfAbsent("journal_mode", "WAL");
+            properties.putIfAbsent("busy_timeout", "5000");
+        }
+
+        @Override
+        public boolean isEmbedded() {
+            return true;
+        }
+
+        @Override
+        public String embeddedJdbcUrl(@NotNull Path file) {
+            return "jdbc:sqlite:" + file.toAbsolutePath();
+        }
+
+        @Override
+        public String embeddedDriverClass() {
+            return "org.sqlite.JDBC";
+        }
+    };
+
+    /**
+     * Quotes a table name
+     */
+    public String quote(@NotNull String identifier) {
+        return "\"" + identifier + "\"";
+    }
+
+    /**
+     * Returns a statement that creates a table with a primary key column and a document column if it does not exist yet
+     * @param table the quoted table name
+     */
+    public abstract String createTableQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn);
+
+    /**
+     * Returns a statement that inserts a row or replaces the document of an existing row. The parameters are the key and the document.
+     * @param table the quoted table name
+     */
+    public abstract String upsertQuery(@NotNull String table, @NotNull String keyColumn, @NotNull String valueColumn);
+
+    /**
+     * Adds the driver properties the storage relies on, unless the config already sets them
+     */
+    public void configure(@NotNull HikariConfig hikariConfig) {
+    }
+
+    /**
+     * Returns whether the database runs inside this process and stores its data in a local file
+     */
+    public boolean isEmbedded() {
+        return false;
+    }
+
+    /**
+     * Returns the jdbc url of a database file for embedded dialects
+     * @param file the database file
+     * @return the jdbc url
+     */
+    public String embeddedJdbcUrl(@NotNull Path file) {
+        throw new IllegalStateException(name() + " is not an embedded database");
+    }
+
+    /**
+     * Returns the class name of the jdbc driver for embedded dialects
+     * @return the driver class name
+     */
+    public String embeddedDriverClass() {
+        throw new IllegalStateException(name() + " is not an embedded database");
+    }
+
+    /**
+     * Finds a dialect by its name, ignoring the case
+     * @param name the name
+     * @return the dialect
+     */
+    public static SqlDialect byName(@NotNull String name) {
+        Objects.requireNonNull(name, "name can't be null!");
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Guesses the dialect of a jdbc url
+     * @param jdbcUrl the jdbc url
+     * @return the dialect, {@link #MYSQL} if the url is unknown
+     */
+    public static SqlDialect fromJdbcUrl(@NotNull String jdbcUrl) {
+        Objects.requireNonNull(jdbcUrl, "jdbcUrl can't be null!");
+        if (jdbcUrl.startsWith("jdbc:postgresql:"))
+            return POSTGRESQL;
+        if (jdbcUrl.startsWith("jdbc:h2:"))
+            return H2;
+        if (jdbcUrl.startsWith("jdbc:sqlite:"))
+            return SQLITE;
+        // MySQL and MariaDB
+        return MYSQL;
+    }
+}
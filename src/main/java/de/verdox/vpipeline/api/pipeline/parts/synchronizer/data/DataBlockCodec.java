@@ -0,0 +1,200 @@
+package de.verdox.vpipeline.api.pipeline.parts.synchronizer.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.verdox.vpipeline.api.pipeline.datatypes.DataSynchronizer;
+import de.verdox.vpipeline.api.util.WireFormat;
+import de.verdox.vserializer.exception.SerializationException;
+import de.verdox.vserializer.json.JsonSerializationElement;
+import de.verdox.vserializer.json.JsonSerializerContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Encodes {@link DataSynchronizer.DataBlock}s for data topics.
+ * <p>
+ * The binary format writes a type id, both uuids and the type specific fields without any json envelope.
+ * The legacy format is the json representation of {@link DataSynchronizer#DATA_BLOCK_SERIALIZER} wrapped in java serialization,
+ * which is what older nodes publish and expect. Older nodes only know update, creation and remove blocks and do not version updates.
+ * <p>
+ * Several data blocks can be packed into one batch message. Batches only exist in the binary format.
+ */
+public class DataBlockCodec {
+    private static final int UPDATE = 0;
+    private static final int CREATION = 1;
+    private static final int REMOVE = 2;
+    private static final int PATCH = 3;
+    private static final int STATE_REQUEST = 4;
+    private static final int BATCH = 5;
+    // First byte of every java serialization stream
+    private static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xAC;
+
+    public byte[] encode(@NotNull DataSynchronizer.DataBlock dataBlock) {
+        Objects.requireNonNull(dataBlock, "dataBlock can't be null!");
+        if (WireFormat.outgoingVersion() == WireFormat.LEGACY_JSON)
+            return encodeLegacy(dataBlock);
+
+        WireFormat.Writer writer = new WireFormat.Writer(64);
+        writer.writeByte(WireFormat.BINARY);
+        if (dataBlock instanceof DataSynchronizer.UpdateDataBlock updateDataBlock) {
+            writeHeader(writer, UPDATE, dataBlock);
+            writer.writeVarLong(updateDataBlock.getVersion());
+            writer.writeString(updateDataBlock.getDataToUpdate());
+        } else if (dataBlock instanceof DataSynchronizer.CreationDataBlock creationDataBlock) {
+            writeHeader(writer, CREATION, dataBlock);
+            writer.writeString(creationDataBlock.getDataToUpdate());
+        } else if (dataBlock instanceof DataSynchronizer.RemoveDataBlock) {
+            writeHeader(writer, REMOVE, dataBlock);
+        } else if (dataBlock instanceof DataSynchronizer.PatchDataBlock patchDataBlock) {
+            writeHeader(writer, PATCH, dataBlock);
+            writer.writeVarLong(patchDataBlock.getBaseVersion());
+            writer.writeVarLong(patchDataBlock.getVersion());
+            writer.writeString(patchDataBlock.getPatch());
+        } else if (dataBlock instanceof DataSynchronizer.StateRequestDataBlock) {
+            writeHeader(writer, STATE_REQUEST, dataBlock);
+        } else
+            throw new IllegalArgumentException("No binary encoding for " + dataBlock.getClass().getSimpleName());
+        return writer.toByteArray();
+    }
+
+    /**
+     * Packs several data blocks into one message
+     * @param dataBlocks the data blocks in the order they are processed by receivers
+     * @return the message
+     */
+    public byte[] encodeBatch(@NotNull List<DataSynchronizer.DataBlock> dataBlocks) {
+        Objects.requireNonNull(dataBlocks, "dataBlocks can't be null!");
+        if (WireFormat.outgoingVersion() == WireFormat.LEGACY_JSON)
+            throw new IllegalStateException("Batches are not supported by the legacy wire format");
+        if (dataBlocks.size() == 1)
+            return encode(dataBlocks.get(0));
+        WireFormat.Writer writer = new WireFormat.Writer(64 * dataBlocks.size());
+        writer.writeByte(WireFormat.BINARY);
+        writer.writeVarLong(BATCH);
+        writer.writeVarLong(dataBlocks.size());
+        for (DataSynchronizer.DataBlock dataBlock : dataBlocks)
+            writer.writeBytes(encode(dataBlock));
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a message that contains either a single data block or a batch
+     * @param message the message
+     * @return the data blocks in the order they were packed
+     */
+    public List<DataSynchronizer.DataBlock> decodeAll(@NotNull byte[] message) {
+        Objects.requireNonNull(message, "message can't be null!");
+        if (message.length == 0 || message[0] != WireFormat.BINARY)
+            return List.of(decode(message));
+        WireFormat.Reader reader = new WireFormat.Reader(message);
+        reader.readByte();
+        if (reader.readVarLong() != BATCH)
+            return List.of(decode(message));
+        int count = (int) reader.readVarLong();
+        List<DataSynchronizer.DataBlock> dataBlocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            dataBlocks.add(decode(reader.readBytes()));
+        return dataBlocks;
+    }
+
+    public DataSynchronizer.DataBlock decode(@NotNull byte[] message) {
+        Objects.requireNonNull(message, "message can't be null!");
+        if (message.length == 0)
+            throw new IllegalArgumentException("Empty data block message");
+        if (message[0] == JAVA_SERIALIZATION_MAGIC)
+            return decodeLegacy(message);
+        if (message[0] != WireFormat.BINARY)
+            throw new IllegalArgumentException("Unsupported wire format version " + message[0]);
+
+        WireFormat.Reader reader = new WireFormat.Reader(message);
+        reader.readByte();
+        int type = (int) reader.readVarLong();
+        UUID senderUUID = reader.readUUID();
+        UUID dataUUID = reader.readUUID();
+        return switch (type) {
+            case UPDATE -> {
+                long version = reader.readVarLong();
+                yield new DataSynchronizer.UpdateDataBlock(senderUUID, dataUUID, reader.readString(), version);
+            }
+            case CREATION -> new DataSynchronizer.CreationDataBlock(senderUUID, dataUUID, reader.readString());
+            case REMOVE -> new DataSynchronizer.RemoveDataBlock(senderUUID, dataUUID);
+            case PATCH -> {
+                long baseVersion = reader.readVarLong();
+                long version = reader.readVarLong();
+                yield new DataSynchronizer.PatchDataBlock(senderUUID, dataUUID, baseVersion, version, reader.readString());
+            }
+            case STATE_REQUEST -> new DataSynchronizer.StateRequestDataBlock(senderUUID, dataUUID);
+            default -> throw new IllegalArgumentException("Unknown data block type " + type);
+        };
+    }
+
+    private void writeHeader(@NotNull WireFormat.Writer writer, int type, @NotNull DataSynchronizer.DataBlock dataBlock) {
+        writer.writeVarLong(type);
+        writer.writeUUID(dataBlock.getSenderUUID());
+        writer.writeUUID(dataBlock.getDataUUID());
+    }
+
+    private byte[] encodeLegacy(@NotNull DataSynchronizer.DataBlock dataBlock) {
+        // Senders fall back to full updates while the legacy format is used
+        if (dataBlock instanceof DataSynchronizer.PatchDataBlock || dataBlock instanceof DataSynchronizer.StateRequestDataBlock)
+            throw new IllegalArgumentException(dataBlock.getClass().getSimpleName() + " can't be sent in the legacy wire format");
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            JsonElement jsonElement = ((JsonSerializationElement) DataSynchronizer.DATA_BLOCK_SERIALIZER.serialize(new JsonSerializerContext(), dataBlock)).getJsonElement();
+            setUpdateVersion(jsonElement, false);
+            String json = jsonElement.toString();
+            objectOutputStream.writeObject(json);
+            objectOutputStream.flush();
+            return outputStream.toByteArray();
+        } catch (IOException | SerializationException e) {
+            throw new IllegalStateException("Could not encode " + dataBlock, e);
+        }
+    }
+
+    private DataSynchronizer.DataBlock decodeLegacy(@NotNull byte[] message) {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(message))) {
+            // Legacy messages only contain a string. Anything else is rejected before it is instantiated.
+            objectInputStream.setObjectInputFilter(filterInfo -> filterInfo.serialClass() == null || filterInfo.serialClass().equals(String.class) ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED);
+            Object json = objectInputStream.readObject();
+            if (!(json instanceof String jsonString))
+                throw new IllegalArgumentException("Legacy data block message does not contain a string");
+            JsonElement jsonElement = JsonParser.parseString(jsonString);
+            setUpdateVersion(jsonElement, true);
+            return DataSynchronizer.DATA_BLOCK_SERIALIZER.deserialize(new JsonSerializerContext().toElement(jsonElement));
+        } catch (IOException | ClassNotFoundException | SerializationException e) {
+            throw new IllegalArgumentException("Could not decode legacy data block message", e);
+        }
+    }
+
+    /**
+     * Older nodes neither send nor expect the version of update blocks.
+     * Received updates without a version get version 0, which is never considered stale.
+     *
+     * @param add whether a missing version is added or an existing one is removed
+     */
+    private static void setUpdateVersion(@NotNull JsonElement jsonElement, boolean add) {
+        if (!jsonElement.isJsonObject())
+            return;
+        JsonObject jsonObject = jsonElement.getAsJsonObject();
+        if (jsonObject.has("dataToUpdate")) {
+            if (add && !jsonObject.has("version"))
+                jsonObject.addProperty("version", 0L);
+            else if (!add)
+                jsonObject.remove("version");
+            return;
+        }
+        // The block itself can be nested in the type envelope
+        jsonObject.entrySet().forEach(entry -> setUpdateVersion(entry.getValue(), add));
+    }
+}
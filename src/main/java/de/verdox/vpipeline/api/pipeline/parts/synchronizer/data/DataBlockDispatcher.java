@@ -0,0 +1,179 @@
+package de.verdox.vpipeline.api.pipeline.parts.synchronizer.data;
+
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * Processes received data blocks on a pool of worker threads instead of the thread that received them.
+ * <p>
+ * Every object is assigned to one worker by the hash of its uuid, so the data blocks of an object are processed in the order they were received
+ * while different objects are processed in parallel. Every worker has a bounded queue. If it is full, the receiving thread waits until there is space again.
+ */
+public class DataBlockDispatcher {
+    public static final int DEFAULT_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final Worker[] workers;
+    private volatile boolean started;
+    private volatile boolean stopped;
+
+    public DataBlockDispatcher() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threads the amount of worker threads
+     * @param queueCapacity the maximum amount of data blocks waiting for each worker
+     */
+    public DataBlockDispatcher(int threads, int queueCapacity) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads has to be positive");
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("queueCapacity has to be positive");
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Worker(new ArrayBlockingQueue<>(queueCapacity), "VPipeline-DataBlockWorker-" + i);
+    }
+
+    /**
+     * Hands a task to the worker of an object. Blocks while the queue of the worker is full.
+     * Tasks that are dispatched after {@link #shutdown()} are dropped, since messages can still arrive while the subscriptions are closed.
+     * @param objectUUID the uuid of the object the task belongs to
+     * @param task the task
+     * @param metrics the metrics the queue depth is recorded in, may be null
+     */
+    public void dispatch(@NotNull UUID objectUUID, @NotNull Runnable task, @Nullable PipelineMetrics metrics) {
+        Objects.requireNonNull(objectUUID, "objectUUID can't be null!");
+        Objects.requireNonNull(task, "task can't be null!");
+        if (stopped) {
+            NetworkLogger.debug("Dropping data block of [" + objectUUID + "] received after shutdown");
+            return;
+        }
+        if (!started)
+            start();
+        Worker worker = workers[Math.floorMod(objectUUID.hashCode(), workers.length)];
+        QueuedTask queued = new QueuedTask(task, metrics);
+        if (metrics != null)
+            metrics.recordQueuedDataBlock();
+        if (!worker.queue.offer(queued)) {
+            if (metrics != null)
+                metrics.recordBackpressure();
+            try {
+                worker.queue.put(queued);
+            } catch (InterruptedException e) {
+                queued.drop();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        // The dispatcher could have been shut down after the check above. Either this thread or the shutdown removes the task again.
+        if (stopped && worker.queue.remove(queued))
+            queued.drop();
+    }
+
+    // The workers are only started once something is received
+    private synchronized void start() {
+        if (started || stopped)
+            return;
+        for (Worker worker : workers)
+            worker.start();
+        started = true;
+    }
+
+    /**
+     * Returns the amount of data blocks that wait for a worker
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers)
+            depth += worker.queue.size();
+        return depth;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Stops all workers. Data blocks that were not processed yet are dropped.
+     */
+    public synchronized void shutdown() {
+        stopped = true;
+        int dropped = 0;
+        for (Worker worker : workers) {
+            worker.interrupt();
+            // Releases receiving threads that wait for space in a full queue
+            List<Runnable> unprocessed = new ArrayList<>();
+            worker.queue.drainTo(unprocessed);
+            for (Runnable task : unprocessed)
+                ((QueuedTask) task).drop();
+            dropped += unprocessed.size();
+        }
+        if (dropped > 0)
+            NetworkLogger.warning("Dropped " + dropped + " unprocessed data blocks on shutdown");
+    }
+
+    /**
+     * A task that keeps the queue depth of its metrics up to date
+     */
+    private static final class QueuedTask implements Runnable {
+        private final Runnable task;
+        @Nullable
+        private final PipelineMetrics metrics;
+
+        private QueuedTask(@NotNull Runnable task, @Nullable PipelineMetrics metrics) {
+            this.task = task;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            if (metrics != null)
+                metrics.recordDequeuedDataBlock();
+            task.run();
+        }
+
+        void drop() {
+            if (metrics != null)
+                metrics.recordDequeuedDataBlock();
+        }
+    }
+
+    private class Worker extends Thread {
+        private final BlockingQueue<Runnable> queue;
+
+        private Worker(@NotNull BlockingQueue<Runnable> queue, @NotNull String name) {
+            super(name);
+            this.queue = queue;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    NetworkLogger.getLogger().log(Level.SEVERE, "Could not process data block", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package de.verdox.vpipeline.api.pipeline.parts.synchronizer.data;
+
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
+import de.verdox.vpipeline.api.pipeline.datatypes.DataSynchronizer;
+import de.verdox.vpipeline.api.util.PayloadCompression;
+import de.verdox.vpipeline.api.util.WireFormat;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.redisson.api.RTopic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Collects outgoing data blocks per topic and publishes them as one batch message on a background thread.
+ * <p>
+ * A batch is published after {@link #getMaxDelayMillis()} or as soon as it holds {@link #getMaxBatchSize()} data blocks.
+ * Pending data blocks of the same object are coalesced: an update or removal replaces all pending updates and patches of that object,
+ * because it carries the whole state. Patches, creations and state requests are kept in order.
+ * All batches are published by one thread, so receivers see the data blocks of a topic in the order they were queued.
+ */
+public class OutboundSyncQueue {
+    private final long maxDelayMillis;
+    private final int maxBatchSize;
+    private final DataBlockCodec dataBlockCodec = new DataBlockCodec();
+    private final Map<String, Batch> batches = new HashMap<>();
+    private final ScheduledExecutorService publisher;
+
+    /**
+     * @param maxDelayMillis the maximum time a data block waits before it is published
+     * @param maxBatchSize the maximum amount of data blocks in one message
+     */
+    public OutboundSyncQueue(long maxDelayMillis, int maxBatchSize) {
+        if (maxDelayMillis <= 0)
+            throw new IllegalArgumentException("maxDelayMillis has to be positive");
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("maxBatchSize has to be positive");
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VPipeline-OutboundSync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a data block for the given topic
+     * @param topic the topic the data block is published on
+     * @param dataBlock the data block
+     * @param metrics the metrics the payload size is recorded in, may be null
+     */
+    public void enqueue(@NotNull RTopic topic, @NotNull DataSynchronizer.DataBlock dataBlock, @Nullable PipelineMetrics metrics) {
+        Objects.requireNonNull(topic, "topic can't be null!");
+        Objects.requireNonNull(dataBlock, "dataBlock can't be null!");
+        String topicName = topic.getChannelNames().get(0);
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = batches.get(topicName);
+            if (batch == null) {
+                batch = new Batch(topic, metrics);
+                batches.put(topicName, batch);
+                Batch scheduled = batch;
+                publisher.schedule(() -> publishIfPending(topicName, scheduled), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.add(dataBlock);
+            if (batch.size >= maxBatchSize) {
+                batches.remove(topicName);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            Batch batch = full;
+            publisher.execute(() -> publish(batch));
+        }
+    }
+
+    /**
+     * Publishes all pending data blocks and waits until they are sent
+     */
+    public void flush() {
+        List<Batch> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        if (publisher.isShutdown())
+            return;
+        // Already submitted batches run first, because the publisher executes in submission order
+        Future<?> future = publisher.submit(() -> pending.forEach(this::publish));
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            NetworkLogger.getLogger().log(Level.WARNING, "Could not flush outbound data blocks", e.getCause());
+        }
+    }
+
+    /**
+     * Publishes all pending data blocks and stops the publisher thread
+     */
+    public void shutdown() {
+        flush();
+        publisher.shutdown();
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    private void publishIfPending(@NotNull String topicName, @NotNull Batch batch) {
+        synchronized (this) {
+            // The batch might already have been published because it was full or flushed
+            if (batches.get(topicName) != batch)
+                return;
+            batches.remove(topicName);
+        }
+        publish(batch);
+    }
+
+    private void publish(@NotNull Batch batch) {
+        try {
+            List<DataSynchronizer.DataBlock> dataBlocks = batch.drain();
+            if (dataBlocks.isEmpty())
+                return;
+            // Older nodes can't decode batches
+            if (WireFormat.outgoingVersion() == WireFormat.LEGACY_JSON) {
+                for (DataSynchronizer.DataBlock dataBlock : dataBlocks)
+                    batch.topic.publish(PayloadCompression.compress(dataBlockCodec.encode(dataBlock), batch.metrics));
+                return;
+            }
+            batch.topic.publish(PayloadCompression.compress(dataBlockCodec.encodeBatch(dataBlocks), batch.metrics));
+        } catch (Exception e) {
+            NetworkLogger.getLogger().log(Level.WARNING, "Could not publish data blocks on " + batch.topic.getChannelNames(), e);
+        }
+    }
+
+    private static class Batch {
+        private final RTopic topic;
+        private final PipelineMetrics metrics;
+        private final Map<UUID, List<DataSynchronizer.DataBlock>> blocksByObject = new LinkedHashMap<>();
+        private final List<DataSynchronizer.DataBlock> order = new ArrayList<>();
+        private int size;
+
+        private Batch(@NotNull RTopic topic, @Nullable PipelineMetrics metrics) {
+            this.topic = topic;
+            this.metrics = metrics;
+        }
+
+        private void add(@NotNull DataSynchronizer.DataBlock dataBlock) {
+            List<DataSynchronizer.DataBlock> pending = blocksByObject.computeIfAbsent(dataBlock.getDataUUID(), uuid -> new ArrayList<>());
+            if (dataBlock instanceof DataSynchronizer.UpdateDataBlock || dataBlock instanceof DataSynchronizer.RemoveDataBlock) {
+                pending.removeIf(queued -> {
+                    if (!(queued instanceof DataSynchronizer.UpdateDataBlock) && !(queued instanceof DataSynchronizer.PatchDataBlock))
+                        return false;
+                    order.remove(queued);
+                    return true;
+                });
+            }
+            pending.add(dataBlock);
+            order.add(dataBlock);
+            size = order.size();
+        }
+
+        private List<DataSynchronizer.DataBlock> drain() {
+            List<DataSynchronizer.DataBlock> dataBlocks = new ArrayList<>(order);
+            order.clear();
+            blocksByObject.clear();
+            size = 0;
+            return dataBlocks;
+        }
+    }
+}
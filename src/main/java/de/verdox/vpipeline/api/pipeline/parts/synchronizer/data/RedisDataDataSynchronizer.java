@@ -1,38 +1,66 @@
 package de.verdox.vpipeline.api.pipeline.parts.synchronizer.data;
 
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import de.verdox.vpipeline.api.NetworkLogger;
 import de.verdox.vpipeline.api.modules.AttachedPipeline;
 import de.verdox.vpipeline.api.pipeline.core.Pipeline;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.datatypes.DataSynchronizer;
 import de.verdox.vpipeline.api.util.AnnotationResolver;
+import de.verdox.vpipeline.api.util.PayloadCompression;
 import de.verdox.vpipeline.impl.util.RedisConnection;
-import de.verdox.vserializer.exception.SerializationException;
 import de.verdox.vserializer.generic.SerializationContext;
-import de.verdox.vserializer.json.JsonSerializationElement;
-import de.verdox.vserializer.json.JsonSerializerContext;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.redisson.api.RTopic;
-import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.ByteArrayCodec;
 
 import java.util.Objects;
 import java.util.UUID;
 import java.util.logging.Level;
 
+/**
+ * Publishes the data blocks of one data type on its redis topic.
+ * <p>
+ * The synchronizer does not subscribe its topic itself. The {@link de.verdox.vpipeline.api.pipeline.parts.synchronizer.pipeline.RedisSynchronizingService}
+ * owns the subscriptions and hands the received messages to {@link #onMessage(byte[])}.
+ * The received data blocks are processed by a {@link DataBlockDispatcher} if one is set, so the receiving thread is not blocked.
+ */
 public class RedisDataDataSynchronizer implements DataSynchronizer {
     private RTopic dataTopic;
-    private MessageListener<String> messageListener;
+    private final DataBlockCodec dataBlockCodec = new DataBlockCodec();
     private final AttachedPipeline attachedPipeline;
     private final Class<? extends IPipelineData> dataClass;
     private final Pipeline pipeline;
     private final RedisConnection redisConnection;
+    private final int shardCount;
+    private final OutboundSyncQueue outboundSyncQueue;
+    private final DataBlockDispatcher dataBlockDispatcher;
 
     public RedisDataDataSynchronizer(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline, @NotNull RedisConnection redisConnection) {
+        this(dataClass, pipeline, redisConnection, 0);
+    }
+
+    /**
+     * @param shardCount the amount of shard topics the data blocks of this type are spread over by their uuid, or 0 to publish all data blocks on one topic
+     */
+    public RedisDataDataSynchronizer(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline, @NotNull RedisConnection redisConnection, int shardCount) {
+        this(dataClass, pipeline, redisConnection, shardCount, null, null);
+    }
+
+    /**
+     * @param shardCount the amount of shard topics the data blocks of this type are spread over by their uuid, or 0 to publish all data blocks on one topic
+     * @param outboundSyncQueue the queue data blocks are batched in before they are published, or null to publish every data block immediately
+     * @param dataBlockDispatcher the workers received data blocks are processed on, or null to process them on the receiving thread
+     */
+    public RedisDataDataSynchronizer(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Pipeline pipeline, @NotNull RedisConnection redisConnection, int shardCount, @Nullable OutboundSyncQueue outboundSyncQueue, @Nullable DataBlockDispatcher dataBlockDispatcher) {
         this.dataClass = dataClass;
         this.pipeline = pipeline;
+        if (shardCount < 0)
+            throw new IllegalArgumentException("shardCount can't be negative");
+        this.shardCount = shardCount;
+        this.outboundSyncQueue = outboundSyncQueue;
+        this.dataBlockDispatcher = dataBlockDispatcher;
 
         Objects.requireNonNull(dataClass, "data can't be null!");
         Objects.requireNonNull(pipeline, "pipeline can't be null!");
@@ -45,18 +73,18 @@ public class RedisDataDataSynchronizer implements DataSynchronizer {
 
     @Override
     public void cleanUp() {
-        dataTopic.removeListener(messageListener);
+        // The synchronizer is shared by all objects of its type, so there is nothing to clean up for a single object
     }
 
     @Override
     public int sendDataBlockToNetwork(DataBlock dataBlock) {
-        String serializedDataBlock;
-        try {
-            serializedDataBlock = ((JsonSerializationElement) DataSynchronizer.DATA_BLOCK_SERIALIZER.serialize(new JsonSerializerContext(), dataBlock)).getJsonElement().toString();
-            return (int) dataTopic.publish(serializedDataBlock);
-        } catch (SerializationException e) {
-            throw new RuntimeException(e);
+        // Only nodes that hold an object of this shard are subscribed
+        RTopic topic = shardCount == 0 ? dataTopic : redisConnection.getRedissonClient().getTopic(getShardTopicName(getShard(dataBlock.getDataUUID())), ByteArrayCodec.INSTANCE);
+        if (outboundSyncQueue != null) {
+            outboundSyncQueue.enqueue(topic, dataBlock, pipeline.getMetrics());
+            return -1;
         }
+        return (int) topic.publish(PayloadCompression.compress(dataBlockCodec.encode(dataBlock), pipeline.getMetrics()));
     }
 
     @Override
@@ -81,30 +109,74 @@ public class RedisDataDataSynchronizer implements DataSynchronizer {
 
     @Override
     public void connect() {
+        // The connection is shared with the synchronizing service and all other synchronizers, connecting twice has no effect
         this.redisConnection.connect();
         this.dataTopic = redisConnection.getTopic(AnnotationResolver.getDataStorageClassifier(dataClass), dataClass);
-        this.messageListener = (channel, jsonString) -> {
-            JsonElement jsonElement = JsonParser.parseString(jsonString);
-            JsonSerializerContext context = new JsonSerializerContext();
+        if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+            NetworkLogger.info("RedisDataSynchronizer started for " + dataClass.getSimpleName());
+    }
+
+    /**
+     * Returns the name of the topic the data blocks of this type are published on
+     * @return the topic name
+     */
+    public String getTopicName() {
+        return RedisConnection.getTopicName(AnnotationResolver.getDataStorageClassifier(dataClass), dataClass);
+    }
 
-            try {
-                DataBlock dataBlock = DataSynchronizer.DATA_BLOCK_SERIALIZER.deserialize(context.toElement(jsonElement));
+    /**
+     * Returns the shard an object belongs to
+     * @param objectUUID the uuid of the object
+     * @return the shard
+     */
+    public int getShard(@NotNull UUID objectUUID) {
+        if (shardCount == 0)
+            throw new IllegalStateException("The synchronizer of " + dataClass.getSimpleName() + " is not sharded");
+        return Math.floorMod(objectUUID.hashCode(), shardCount);
+    }
+
+    public String getShardTopicName(int shard) {
+        return getTopicName() + ":" + shard;
+    }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Decodes a message that was received on the topic of this type and processes its data blocks
+     * @param message the encoded data block or batch of data blocks
+     */
+    public void onMessage(@NotNull byte[] message) {
+        try {
+            for (DataBlock dataBlock : dataBlockCodec.decodeAll(PayloadCompression.decompress(message))) {
                 if (dataBlock.getSenderUUID().equals(pipeline.getNetworkParticipant().getUUID()))
-                    return;
-                dataBlock.process(dataClass, pipeline);
-                NetworkLogger.debug("["+pipeline.getNetworkParticipant().getUUID()+"] Received and processed dataBlock "+dataBlock);
-            } catch (SerializationException e) {
-                LOGGER.log(Level.SEVERE, "Could not process data block", e);
+                    continue;
+                if (dataBlockDispatcher != null)
+                    dataBlockDispatcher.dispatch(dataBlock.getDataUUID(), () -> process(dataBlock), pipeline.getMetrics());
+                else
+                    process(dataBlock);
             }
-        };
-        dataTopic.addListener(String.class, messageListener);
-        if (AnnotationResolver.getDataProperties(dataClass).debugMode())
-            NetworkLogger.info("RedisDataSynchronizer started for " + dataClass.getSimpleName());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not decode data block", e);
+        }
+    }
+
+    private void process(@NotNull DataBlock dataBlock) {
+        try {
+            dataBlock.process(dataClass, pipeline);
+            NetworkLogger.debug("["+pipeline.getNetworkParticipant().getUUID()+"] Received and processed dataBlock "+dataBlock);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not process data block " + dataBlock, e);
+        }
     }
 
     @Override
     public void disconnect() {
-        this.redisConnection.disconnect();
+        // The shared connection and the subscription are owned by the synchronizing service
     }
 }
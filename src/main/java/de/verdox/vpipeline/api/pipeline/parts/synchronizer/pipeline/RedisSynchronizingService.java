@@ -7,15 +7,42 @@ import de.verdox.vpipeline.api.pipeline.core.Pipeline;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.datatypes.DataSynchronizer;
 import de.verdox.vpipeline.api.pipeline.datatypes.SynchronizingService;
+import de.verdox.vpipeline.api.pipeline.parts.synchronizer.data.DataBlockDispatcher;
+import de.verdox.vpipeline.api.pipeline.parts.synchronizer.data.OutboundSyncQueue;
 import de.verdox.vpipeline.api.pipeline.parts.synchronizer.data.RedisDataDataSynchronizer;
 import de.verdox.vpipeline.impl.util.RedisConnection;
+import de.verdox.vpipeline.impl.util.WireFormatNegotiator;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vserializer.generic.SerializerBuilder;
 import org.jetbrains.annotations.NotNull;
+import org.redisson.api.RTopic;
+import org.redisson.client.codec.ByteArrayCodec;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
+/**
+ * Synchronizes data over redis topics.
+ * <p>
+ * By default every data type has one topic. A node subscribes the topic of a type when the type is registered in its pipeline,
+ * so it never receives the traffic of types it does not know. All subscriptions share the pub/sub connections of one redis client.
+ * With a shard count, every type is split into shard topics by the uuid of the objects. A node only subscribes the shards of the
+ * objects it holds in its local cache and therefore does not receive updates of objects it does not know.
+ * This includes creations, so objects created on other nodes are no longer pushed into the local cache of every node.
+ * All nodes of a network have to use the same shard count.
+ * <p>
+ * With a max delay, outgoing data blocks are coalesced and published in batches by an {@link OutboundSyncQueue}
+ * instead of being published on the thread that changed the data.
+ * <p>
+ * Received data blocks are processed by a {@link DataBlockDispatcher}, so one slow subscriber does not block the redis listener thread.
+ */
 public class RedisSynchronizingService implements SynchronizingService {
     public static final Serializer<RedisSynchronizingService> SERIALIZER = SerializerBuilder.create("redis_cache", RedisSynchronizingService.class)
             .constructor(
@@ -23,37 +50,245 @@ public class RedisSynchronizingService implements SynchronizingService {
                     RedisSynchronizingService::new
             )
             .build();
+    public static final Serializer<RedisSynchronizingService> SHARDED_SERIALIZER = SerializerBuilder.create("redis_sharded_synchronizing_service", RedisSynchronizingService.class)
+            .constructor(
+                    new SerializableField<>("redis_connection", RedisConnection.SERIALIZER, RedisSynchronizingService::getRedisConnection),
+                    new SerializableField<>("shard_count", Serializer.Primitive.INTEGER, RedisSynchronizingService::getShardCount),
+                    RedisSynchronizingService::new
+            )
+            .build();
+    public static final Serializer<RedisSynchronizingService> BATCHED_SERIALIZER = SerializerBuilder.create("redis_batched_synchronizing_service", RedisSynchronizingService.class)
+            .constructor(
+                    new SerializableField<>("redis_connection", RedisConnection.SERIALIZER, RedisSynchronizingService::getRedisConnection),
+                    new SerializableField<>("shard_count", Serializer.Primitive.INTEGER, RedisSynchronizingService::getShardCount),
+                    new SerializableField<>("max_delay_millis", Serializer.Primitive.LONG, RedisSynchronizingService::getMaxDelayMillis),
+                    new SerializableField<>("max_batch_size", Serializer.Primitive.INTEGER, RedisSynchronizingService::getMaxBatchSize),
+                    RedisSynchronizingService::new
+            )
+            .build();
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long RECONCILE_INTERVAL_SECONDS = 30;
+
     private final RedisConnection redisConnection;
+    private final int shardCount;
+    private final long maxDelayMillis;
+    private final int maxBatchSize;
+    private final OutboundSyncQueue outboundSyncQueue;
+    private final DataBlockDispatcher dataBlockDispatcher = new DataBlockDispatcher();
     private final Map<Class<? extends IPipelineData>, RedisDataDataSynchronizer> cache;
+    private final Map<Class<? extends IPipelineData>, TopicSubscription> typeSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, ShardSubscription> shardSubscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reconciler;
+    private WireFormatNegotiator wireFormatNegotiator;
 
     public RedisSynchronizingService(@NotNull RedisConnection redisConnection) {
+        this(redisConnection, 0);
+    }
+
+    /**
+     * @param redisConnection the redis connection
+     * @param shardCount the amount of shard topics per type, or 0 to receive every update of every used type
+     */
+    public RedisSynchronizingService(@NotNull RedisConnection redisConnection, int shardCount) {
+        this(redisConnection, shardCount, 0, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param redisConnection the redis connection
+     * @param shardCount the amount of shard topics per type, or 0 to receive every update of every used type
+     * @param maxDelayMillis the maximum time outgoing data blocks are queued before they are published, or 0 to publish them immediately
+     * @param maxBatchSize the maximum amount of data blocks published in one message
+     */
+    public RedisSynchronizingService(@NotNull RedisConnection redisConnection, int shardCount, long maxDelayMillis, int maxBatchSize) {
+        if (shardCount < 0)
+            throw new IllegalArgumentException("shardCount can't be negative");
+        if (maxDelayMillis < 0)
+            throw new IllegalArgumentException("maxDelayMillis can't be negative");
         this.redisConnection = redisConnection;
+        this.shardCount = shardCount;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.outboundSyncQueue = maxDelayMillis > 0 ? new OutboundSyncQueue(maxDelayMillis, maxBatchSize) : null;
         this.cache = new ConcurrentHashMap<>();
     }
 
+    @Override
+    public DataSynchronizer getOrCreate(@NotNull Pipeline pipeline, @NotNull IPipelineData data) {
+        RedisDataDataSynchronizer synchronizer = (RedisDataDataSynchronizer) getOrCreate(pipeline, data.getClass());
+        if (shardCount > 0)
+            subscribeShard(synchronizer, synchronizer.getShard(data.getObjectUUID()));
+        return synchronizer;
+    }
+
     @Override
     public DataSynchronizer getOrCreate(@NotNull Pipeline pipeline, @NotNull Class<? extends IPipelineData> type) {
-        cache.computeIfAbsent(type, aClass -> new RedisDataDataSynchronizer(type, pipeline, redisConnection));
-        return cache.get(type);
+        return cache.computeIfAbsent(type, aClass -> {
+            RedisDataDataSynchronizer synchronizer = new RedisDataDataSynchronizer(type, pipeline, redisConnection, shardCount, outboundSyncQueue, dataBlockDispatcher);
+            // Sharded types subscribe their shards when objects are used
+            if (shardCount == 0)
+                subscribe(synchronizer);
+            return synchronizer;
+        });
+    }
+
+    /**
+     * Subscribes to the topic of one data type. The single listener of the type hands every message to its synchronizer.
+     */
+    private synchronized void subscribe(@NotNull RedisDataDataSynchronizer synchronizer) {
+        if (typeSubscriptions.containsKey(synchronizer.getSynchronizingType()))
+            return;
+        redisConnection.connect();
+        RTopic topic = redisConnection.getRedissonClient().getTopic(synchronizer.getTopicName(), ByteArrayCodec.INSTANCE);
+        int id = topic.addListener(byte[].class, (channel, message) -> synchronizer.onMessage(message));
+        typeSubscriptions.put(synchronizer.getSynchronizingType(), new TopicSubscription(topic, id));
+    }
+
+    private synchronized void unsubscribe() {
+        typeSubscriptions.values().forEach(subscription -> subscription.topic().removeListener(subscription.listenerId()));
+        typeSubscriptions.clear();
+    }
+
+    private void subscribeShard(@NotNull RedisDataDataSynchronizer synchronizer, int shard) {
+        String topicName = synchronizer.getShardTopicName(shard);
+        // Reusing a subscription refreshes its use time atomically, so the reconciler can't drop it at the same time
+        if (markShardUsed(topicName))
+            return;
+        synchronized (this) {
+            if (markShardUsed(topicName))
+                return;
+            redisConnection.connect();
+            RTopic topic = redisConnection.getRedissonClient().getTopic(topicName, ByteArrayCodec.INSTANCE);
+            int id = topic.addListener(byte[].class, (channel, message) -> synchronizer.onMessage(message));
+            shardSubscriptions.put(topicName, new ShardSubscription(topic, id, System.currentTimeMillis()));
+            startReconciler();
+        }
+    }
+
+    private boolean markShardUsed(@NotNull String topicName) {
+        long now = System.currentTimeMillis();
+        return shardSubscriptions.computeIfPresent(topicName, (name, subscription) -> subscription.usedAt(now)) != null;
+    }
+
+    private synchronized void startReconciler() {
+        if (reconciler != null)
+            return;
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VPipeline-ShardReconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::unsubscribeUnusedShards, RECONCILE_INTERVAL_SECONDS, RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Unsubscribes the shards that no locally cached object belongs to anymore.
+     * Shards used during the last interval are kept, because their object might not be in the local cache yet.
+     * Every shard is checked and removed atomically with respect to {@link #markShardUsed(String)}.
+     */
+    private void unsubscribeUnusedShards() {
+        try {
+            Set<String> usedTopics = new HashSet<>();
+            for (RedisDataDataSynchronizer synchronizer : cache.values()) {
+                Set<UUID> cached = synchronizer.getPipeline().getLocalCache().getSavedUUIDs(synchronizer.getSynchronizingType());
+                for (UUID uuid : cached)
+                    usedTopics.add(synchronizer.getShardTopicName(synchronizer.getShard(uuid)));
+            }
+            long threshold = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(RECONCILE_INTERVAL_SECONDS);
+            synchronized (this) {
+                for (String topicName : shardSubscriptions.keySet()) {
+                    shardSubscriptions.computeIfPresent(topicName, (name, subscription) -> {
+                        if (usedTopics.contains(name) || subscription.lastUsedAt() > threshold)
+                            return subscription;
+                        subscription.topic().removeListener(subscription.listenerId());
+                        return null;
+                    });
+                }
+            }
+        } catch (Exception e) {
+            NetworkLogger.getLogger().log(Level.WARNING, "Could not unsubscribe unused shards", e);
+        }
+    }
+
+    private synchronized void unsubscribeShards() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+        shardSubscriptions.values().forEach(subscription -> subscription.topic().removeListener(subscription.listenerId()));
+        shardSubscriptions.clear();
     }
 
     @Override
     public void shutdown() {
         disconnect();
+        if (outboundSyncQueue != null)
+            outboundSyncQueue.shutdown();
+        dataBlockDispatcher.shutdown();
     }
 
     public RedisConnection getRedisConnection() {
         return redisConnection;
     }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public DataBlockDispatcher getDataBlockDispatcher() {
+        return dataBlockDispatcher;
+    }
+
     @Override
     public void connect() {
         getRedisConnection().connect();
+        startWireFormatNegotiator();
+        if (!cache.isEmpty()) {
+            cache.values().forEach(RedisDataDataSynchronizer::connect);
+            if (shardCount == 0)
+                cache.values().forEach(this::subscribe);
+        }
         NetworkLogger.info("Redis Synchronizing Service started");
     }
 
     @Override
     public void disconnect() {
+        // Queued data blocks are published while the connection is still open
+        if (outboundSyncQueue != null)
+            outboundSyncQueue.flush();
+        unsubscribe();
+        unsubscribeShards();
+        stopWireFormatNegotiator();
         getRedisConnection().disconnect();
     }
+
+    private synchronized void startWireFormatNegotiator() {
+        if (wireFormatNegotiator != null)
+            return;
+        wireFormatNegotiator = new WireFormatNegotiator(getRedisConnection().getRedissonClient());
+        wireFormatNegotiator.start();
+    }
+
+    private synchronized void stopWireFormatNegotiator() {
+        if (wireFormatNegotiator == null)
+            return;
+        wireFormatNegotiator.stop();
+        wireFormatNegotiator = null;
+    }
+
+    private record TopicSubscription(RTopic topic, int listenerId) {
+    }
+
+    private record ShardSubscription(RTopic topic, int listenerId, long lastUsedAt) {
+        ShardSubscription usedAt(long time) {
+            return new ShardSubscription(topic, listenerId, time);
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package de.verdox.vpipeline.api.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates and applies JSON patches in the format of RFC 6902.
+ * <p>
+ * Only the operations add, remove and replace are generated. Objects are compared field by field while arrays and primitives are replaced as a whole.
+ * This keeps every operation idempotent so a patch can be applied on a state that already contains some of its changes.
+ */
+public class JsonPatch {
+    private static final String OP = "op";
+    private static final String PATH = "path";
+    private static final String VALUE = "value";
+
+    /**
+     * Creates the operations that turn the source into the target
+     *
+     * @param source the old state
+     * @param target the new state
+     * @return the patch operations
+     */
+    @NotNull
+    public static JsonArray diff(@NotNull JsonElement source, @NotNull JsonElement target) {
+        Objects.requireNonNull(source, "source can't be null!");
+        Objects.requireNonNull(target, "target can't be null!");
+        JsonArray operations = new JsonArray();
+        diff(source, target, "", operations);
+        return operations;
+    }
+
+    /**
+     * Applies a patch on a copy of the source
+     *
+     * @param source the state the patch is applied on. It is not modified
+     * @param patch  the patch operations
+     * @return the patched state
+     * @throws IllegalArgumentException if the patch does not fit the source
+     */
+    @NotNull
+    public static JsonElement apply(@NotNull JsonElement source, @NotNull JsonArray patch) {
+        Objects.requireNonNull(source, "source can't be null!");
+        Objects.requireNonNull(patch, "patch can't be null!");
+        JsonElement result = source.deepCopy();
+        for (JsonElement element : patch) {
+            JsonObject operation = element.getAsJsonObject();
+            String op = operation.get(OP).getAsString();
+            String path = operation.get(PATH).getAsString();
+
+            if (path.isEmpty()) {
+                if (op.equals("remove"))
+                    throw new IllegalArgumentException("Can't remove the root of a json document");
+                result = operation.get(VALUE).deepCopy();
+                continue;
+            }
+
+            String[] tokens = path.substring(1).split("/", -1);
+            JsonObject parent = navigate(result, tokens);
+            String key = unescape(tokens[tokens.length - 1]);
+            switch (op) {
+                case "add", "replace" -> parent.add(key, operation.get(VALUE).deepCopy());
+                case "remove" -> parent.remove(key);
+                default -> throw new IllegalArgumentException("Unsupported patch operation " + op);
+            }
+        }
+        return result;
+    }
+
+    private static void diff(@NotNull JsonElement source, @NotNull JsonElement target, @NotNull String path, @NotNull JsonArray operations) {
+        if (source.equals(target))
+            return;
+        if (!source.isJsonObject() || !target.isJsonObject()) {
+            operations.add(operation("replace", path, target));
+            return;
+        }
+        JsonObject sourceObject = source.getAsJsonObject();
+        JsonObject targetObject = target.getAsJsonObject();
+        for (Map.Entry<String, JsonElement> entry : sourceObject.entrySet()) {
+            String childPath = path + "/" + escape(entry.getKey());
+            JsonElement targetValue = targetObject.get(entry.getKey());
+            if (targetValue == null)
+                operations.add(operation("remove", childPath, null));
+            else
+                diff(entry.getValue(), targetValue, childPath, operations);
+        }
+        for (Map.Entry<String, JsonElement> entry : targetObject.entrySet()) {
+            if (!sourceObject.has(entry.getKey()))
+                operations.add(operation("add", path + "/" + escape(entry.getKey()), entry.getValue()));
+        }
+    }
+
+    private static JsonObject navigate(@NotNull JsonElement root, @NotNull String[] tokens) {
+        JsonElement current = root;
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (!current.isJsonObject())
+                throw new IllegalArgumentException("Patch path does not point to a json object");
+            current = current.getAsJsonObject().get(unescape(tokens[i]));
+            if (current == null)
+                throw new IllegalArgumentException("Patch path does not exist");
+        }
+        if (!current.isJsonObject())
+            throw new IllegalArgumentException("Patch path does not point to a json object");
+        return current.getAsJsonObject();
+    }
+
+    private static JsonObject operation(@NotNull String op, @NotNull String path, JsonElement value) {
+        JsonObject operation = new JsonObject();
+        operation.addProperty(OP, op);
+        operation.addProperty(PATH, path);
+        if (value != null)
+            operation.add(VALUE, value);
+        return operation;
+    }
+
+    private static String escape(@NotNull String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String unescape(@NotNull String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+}
@@ -0,0 +1,114 @@
+package de.verdox.vpipeline.api.util;
+
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of payloads that are stored in or published over redis.
+ * <p>
+ * Payloads of at least {@value #DEFAULT_THRESHOLD} bytes are deflated and prefixed with a magic header.
+ * Payloads without the header are returned as they are, so values written without compression stay readable.
+ * The threshold can be changed with the system property {@value #THRESHOLD_PROPERTY}, a negative value disables compression.
+ */
+public class PayloadCompression {
+    public static final String THRESHOLD_PROPERTY = "vpipeline.compressionThreshold";
+    public static final int DEFAULT_THRESHOLD = 1024;
+    /**
+     * Upper bound for the size of a decompressed payload, to reject corrupted or malicious headers
+     */
+    public static final int MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
+    // Neither json, the java serialization header nor a wire format version byte start with these bytes
+    private static final byte MAGIC_0 = (byte) 0xC5;
+    private static final byte MAGIC_1 = (byte) 0x5A;
+    private static final byte DEFLATE = 1;
+    private static final int HEADER_SIZE = 7;
+
+    /**
+     * Compresses a payload if it is larger than the threshold and compression actually saves space
+     * @param payload the payload
+     * @param metrics the metrics the compression ratio is recorded in, may be null
+     * @return the compressed payload with header, or the given payload
+     */
+    public static byte[] compress(@NotNull byte[] payload, @Nullable PipelineMetrics metrics) {
+        Objects.requireNonNull(payload, "payload can't be null!");
+        int threshold = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+        if (threshold < 0 || payload.length < threshold) {
+            if (metrics != null)
+                metrics.recordPayload(payload.length, payload.length, false);
+            return payload;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length / 2 + HEADER_SIZE);
+        try {
+            outputStream.writeBytes(new byte[]{MAGIC_0, MAGIC_1, DEFLATE});
+            outputStream.writeBytes(ByteBuffer.allocate(4).putInt(payload.length).array());
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+                if (outputStream.size() >= payload.length)
+                    break;
+            }
+        } finally {
+            deflater.end();
+        }
+
+        boolean compressed = outputStream.size() < payload.length;
+        byte[] result = compressed ? outputStream.toByteArray() : payload;
+        if (metrics != null)
+            metrics.recordPayload(payload.length, result.length, compressed);
+        return result;
+    }
+
+    /**
+     * Decompresses a payload written by {@link #compress(byte[], PipelineMetrics)}
+     * @param payload the payload
+     * @return the original payload
+     */
+    public static byte[] decompress(@NotNull byte[] payload) {
+        Objects.requireNonNull(payload, "payload can't be null!");
+        if (!isCompressed(payload))
+            return payload;
+        if (payload[2] != DEFLATE)
+            throw new IllegalArgumentException("Unknown compression algorithm " + payload[2]);
+        int size = ByteBuffer.wrap(payload, 3, 4).getInt();
+        if (size < 0 || size > MAX_PAYLOAD_SIZE)
+            throw new IllegalArgumentException("Invalid decompressed payload size " + size);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, HEADER_SIZE, payload.length - HEADER_SIZE);
+            byte[] result = new byte[size];
+            int read = 0;
+            while (read < size) {
+                int length = inflater.inflate(result, read, size - read);
+                if (length == 0 && (inflater.finished() || inflater.needsInput()))
+                    break;
+                read += length;
+            }
+            if (read != size)
+                throw new IllegalArgumentException("Compressed payload is truncated");
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Compressed payload is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public static boolean isCompressed(@NotNull byte[] payload) {
+        return payload.length >= HEADER_SIZE && payload[0] == MAGIC_0 && payload[1] == MAGIC_1;
+    }
+}
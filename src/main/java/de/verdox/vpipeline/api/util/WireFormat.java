@@ -0,0 +1,197 @@
+package de.verdox.vpipeline.api.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primitives of the binary format used for messages that are published over redis topics.
+ * <p>
+ * Every binary message starts with a format version byte. Receivers decode every version they know, senders use {@link #outgoingVersion()}.
+ * Nodes advertise the newest version they can read (see {@link de.verdox.vpipeline.impl.util.WireFormatNegotiator}) and senders
+ * use the lowest version advertised in their network, so nodes on different versions can run side by side.
+ * <p>
+ * Nodes built before the binary format do not advertise anything. When such nodes are upgraded, the outgoing version has to be pinned to
+ * {@link #LEGACY_JSON} with the system property {@value #VERSION_PROPERTY} on the upgraded nodes until the last old node is gone.
+ * The property is an upper bound, the negotiated version is never higher.
+ */
+public class WireFormat {
+    /**
+     * The json format used before the binary format was introduced
+     */
+    public static final byte LEGACY_JSON = 1;
+    /**
+     * Varint length prefixed binary format
+     */
+    public static final byte BINARY = 2;
+    public static final byte CURRENT_VERSION = BINARY;
+    public static final String VERSION_PROPERTY = "vpipeline.wireFormat";
+
+    private static final Map<UUID, Byte> negotiatedVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the format version new messages are written in.
+     * This is the lowest of the configured version and the versions negotiated with the networks this jvm is connected to.
+     * @return the format version
+     */
+    public static byte outgoingVersion() {
+        byte version = configuredVersion();
+        for (byte negotiated : negotiatedVersions.values())
+            version = (byte) Math.min(version, negotiated);
+        return version;
+    }
+
+    /**
+     * Returns the highest format version this node is allowed to send
+     * @return the configured format version
+     */
+    public static byte configuredVersion() {
+        int version = Integer.getInteger(VERSION_PROPERTY, CURRENT_VERSION);
+        if (version < LEGACY_JSON || version > CURRENT_VERSION)
+            throw new IllegalStateException("Unsupported wire format version " + version);
+        return (byte) version;
+    }
+
+    /**
+     * Sets the lowest format version the nodes of a network can read
+     * @param negotiatorUUID the negotiator of the network
+     * @param version the lowest common version of the network
+     */
+    public static void setNegotiatedVersion(@NotNull UUID negotiatorUUID, byte version) {
+        Objects.requireNonNull(negotiatorUUID, "negotiatorUUID can't be null!");
+        if (version < LEGACY_JSON)
+            throw new IllegalArgumentException("Unsupported wire format version " + version);
+        negotiatedVersions.put(negotiatorUUID, version);
+    }
+
+    /**
+     * Forgets the version negotiated with a network
+     * @param negotiatorUUID the negotiator of the network
+     */
+    public static void removeNegotiatedVersion(@NotNull UUID negotiatorUUID) {
+        Objects.requireNonNull(negotiatorUUID, "negotiatorUUID can't be null!");
+        negotiatedVersions.remove(negotiatorUUID);
+    }
+
+    public static class Writer {
+        private byte[] buffer;
+        private int position;
+
+        public Writer(int initialCapacity) {
+            this.buffer = new byte[Math.max(16, initialCapacity)];
+        }
+
+        public Writer writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+            return this;
+        }
+
+        public Writer writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+            return this;
+        }
+
+        public Writer writeUUID(@NotNull UUID uuid) {
+            Objects.requireNonNull(uuid, "uuid can't be null!");
+            ensureCapacity(16);
+            writeFixedLong(uuid.getMostSignificantBits());
+            writeFixedLong(uuid.getLeastSignificantBits());
+            return this;
+        }
+
+        public Writer writeString(@NotNull String value) {
+            Objects.requireNonNull(value, "value can't be null!");
+            return writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public Writer writeBytes(@NotNull byte[] value) {
+            Objects.requireNonNull(value, "value can't be null!");
+            writeVarLong(value.length);
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+            return this;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void writeFixedLong(long value) {
+            for (int i = 7; i >= 0; i--)
+                buffer[position++] = (byte) (value >>> (i * 8));
+        }
+
+        private void ensureCapacity(int additionalBytes) {
+            if (position + additionalBytes > buffer.length)
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additionalBytes));
+        }
+    }
+
+    public static class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        public Reader(@NotNull byte[] buffer) {
+            this.buffer = Objects.requireNonNull(buffer, "buffer can't be null!");
+        }
+
+        public byte readByte() {
+            checkAvailable(1);
+            return buffer[position++];
+        }
+
+        public long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return result;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        public UUID readUUID() {
+            checkAvailable(16);
+            return new UUID(readFixedLong(), readFixedLong());
+        }
+
+        public String readString() {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        public byte[] readBytes() {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Invalid length " + length);
+            checkAvailable((int) length);
+            byte[] result = Arrays.copyOfRange(buffer, position, position + (int) length);
+            position += (int) length;
+            return result;
+        }
+
+        private long readFixedLong() {
+            long result = 0;
+            for (int i = 0; i < 8; i++)
+                result = (result << 8) | (buffer[position++] & 0xFF);
+            return result;
+        }
+
+        private void checkAvailable(int bytes) {
+            if (position + bytes > buffer.length)
+                throw new IllegalArgumentException("Unexpected end of message");
+        }
+    }
+}
@@ -11,9 +11,11 @@ import de.verdox.vpipeline.api.pipeline.parts.GlobalStorage;
 import de.verdox.vpipeline.api.pipeline.parts.LocalCache;
 import de.verdox.vpipeline.api.pipeline.parts.synchronizer.pipeline.DummySynchronizingService;
 import de.verdox.vpipeline.impl.pipeline.core.PipelineImpl;
-import de.verdox.vpipeline.api.pipeline.parts.cache.local.HashedLocalCache;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.ConcurrentLocalCache;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public class PipelineBuilderImpl implements PipelineBuilder {
@@ -22,9 +24,12 @@ public class PipelineBuilderImpl implements PipelineBuilder {
     private SynchronizingService synchronizingService = new DummySynchronizingService();
     private NetworkDataLockingService networkDataLockingService = NetworkDataLockingService.createDummy();
     private Consumer<GsonBuilder> gsonBuilderConsumer;
-    private LocalCache localCache = new HashedLocalCache();
+    private LocalCache localCache = new ConcurrentLocalCache();
+    private Executor asyncExecutor;
 
-    public PipelineBuilder withLocalCache(LocalCache localCache) {
+    @Override
+    public PipelineBuilder withLocalCache(@NotNull LocalCache localCache) {
+        Objects.requireNonNull(localCache, "localCache can't be null!");
         this.localCache = localCache;
         return this;
     }
@@ -55,6 +60,13 @@ public class PipelineBuilderImpl implements PipelineBuilder {
         return this;
     }
 
+    @Override
+    public PipelineBuilder withAsyncExecutor(@NotNull Executor executor) {
+        Objects.requireNonNull(executor, "executor can't be null!");
+        this.asyncExecutor = executor;
+        return this;
+    }
+
     @Override
     public PipelineBuilder withGson(Consumer<GsonBuilder> gsonBuilderConsumer) {
         this.gsonBuilderConsumer = gsonBuilderConsumer;
@@ -67,7 +79,7 @@ public class PipelineBuilderImpl implements PipelineBuilder {
             NetworkLogger.warning("Both globalCache and globalStorage were not set during pipeline building phase.");
         if (synchronizingService == null && globalCache != null)
             NetworkLogger.warning("A globalCache but no synchronizing service was set during pipeline building phase.");
-        return new PipelineImpl(localCache, networkDataLockingService, globalCache, globalStorage, synchronizingService, gsonBuilderConsumer);
+        return new PipelineImpl(localCache, networkDataLockingService, globalCache, globalStorage, synchronizingService, gsonBuilderConsumer, asyncExecutor);
     }
 
     private void checkStorage() {
@@ -0,0 +1,67 @@
+package de.verdox.vpipeline.impl.pipeline.core;
+
+import de.verdox.vpipeline.api.pipeline.core.AsyncPipeline;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public record AsyncPipelineImpl(Pipeline pipeline, Executor executor) implements AsyncPipeline {
+
+    @Override
+    public @NotNull Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    @Override
+    public @NotNull <T extends IPipelineData> CompletableFuture<DataAccess<T>> loadAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid) {
+        return submit(type, uuid, () -> pipeline.load(type, uuid));
+    }
+
+    @Override
+    public @NotNull <T extends IPipelineData> CompletableFuture<DataAccess<T>> loadOrCreateAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid, @Nullable Consumer<T> immediateWriteOperation) {
+        return submit(type, uuid, () -> pipeline.loadOrCreate(type, uuid, immediateWriteOperation));
+    }
+
+    @Override
+    public @NotNull <T extends IPipelineData> CompletableFuture<Boolean> existAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid) {
+        return submit(type, uuid, () -> pipeline.exist(type, uuid));
+    }
+
+    @Override
+    public @NotNull <T extends IPipelineData> CompletableFuture<Boolean> deleteAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid) {
+        return submit(type, uuid, () -> pipeline.delete(type, uuid));
+    }
+
+    @Override
+    public @NotNull <T extends IPipelineData> CompletableFuture<Boolean> saveAndRemoveAsync(@NotNull Class<? extends T> type, @NotNull UUID uuid) {
+        return submit(type, uuid, () -> pipeline.saveAndRemoveFromLocalCache(type, uuid));
+    }
+
+    /**
+     * Runs the operation on the executor. Invalid arguments and rejected tasks complete the future exceptionally instead of being thrown.
+     */
+    private <R> CompletableFuture<R> submit(@NotNull Class<? extends IPipelineData> type, @NotNull UUID uuid, @NotNull Supplier<R> operation) {
+        try {
+            verifyInput(type, uuid);
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void verifyInput(@NotNull Class<? extends IPipelineData> type, @NotNull UUID uuid) {
+        Objects.requireNonNull(type, "dataClass can't be null");
+        Objects.requireNonNull(uuid, "uuid can't be null");
+        if (!pipeline.getDataRegistry().isTypeRegistered(type))
+            throw new IllegalStateException("dataclass " + type.getSimpleName() + " not registered in pipeline data registry");
+    }
+}
@@ -1,17 +1,21 @@
 package de.verdox.vpipeline.impl.pipeline.core;
 
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
 import de.verdox.vpipeline.api.NetworkLogger;
 import de.verdox.vpipeline.api.NetworkParticipant;
 import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
 import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
+import de.verdox.vpipeline.api.pipeline.core.AsyncPipeline;
 import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
 import de.verdox.vpipeline.api.pipeline.core.PipelineSynchronizer;
 import de.verdox.vpipeline.api.pipeline.datatypes.DataRegistry;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.datatypes.SynchronizingService;
 import de.verdox.vpipeline.api.pipeline.enums.PreloadStrategy;
+import de.verdox.vpipeline.api.pipeline.parts.DataProvider;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalCache;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalStorage;
 import de.verdox.vpipeline.api.pipeline.parts.LocalCache;
@@ -21,15 +25,29 @@ import de.verdox.vpipeline.impl.pipeline.datatypes.DataRegistryImpl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class PipelineImpl implements Pipeline {
+    // Amount of objects saveAll hands to the global storage at once
+    private static final int SAVE_ALL_BATCH_SIZE = 1000;
+    private static final int LOAD_ALL_BATCH_SIZE = 1000;
     private final GlobalStorage globalStorage;
     private final GlobalCache globalCache;
     private final LocalCache localCache;
@@ -40,15 +58,35 @@ public class PipelineImpl implements Pipeline {
     private boolean ready;
     private final NetworkDataLockingService networkDataLockingService;
     private final Consumer<GsonBuilder> gsonBuilderConsumer;
+    private final AsyncPipelineImpl asyncPipeline;
+    private final WriteBehindQueue writeBehindQueue;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final Map<InFlightLoadKey, CompletableFuture<IPipelineData>> inFlightLoads = new ConcurrentHashMap<>();
+    @Nullable
+    private final ExecutorService ownedAsyncExecutor;
 
     public PipelineImpl(@NotNull LocalCache localCache, @NotNull NetworkDataLockingService networkDataLockingService, @Nullable GlobalCache globalCache, @Nullable GlobalStorage globalStorage, @Nullable SynchronizingService synchronizingService, @Nullable Consumer<GsonBuilder> gsonBuilderConsumer) {
+        this(localCache, networkDataLockingService, globalCache, globalStorage, synchronizingService, gsonBuilderConsumer, null);
+    }
+
+    /**
+     * @param asyncExecutor the executor used by {@link #async()}. If null a virtual thread per task executor is created and shut down with the pipeline
+     */
+    public PipelineImpl(@NotNull LocalCache localCache, @NotNull NetworkDataLockingService networkDataLockingService, @Nullable GlobalCache globalCache, @Nullable GlobalStorage globalStorage, @Nullable SynchronizingService synchronizingService, @Nullable Consumer<GsonBuilder> gsonBuilderConsumer, @Nullable Executor asyncExecutor) {
+        if (asyncExecutor == null) {
+            this.ownedAsyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            asyncExecutor = this.ownedAsyncExecutor;
+        } else
+            this.ownedAsyncExecutor = null;
+        this.asyncPipeline = new AsyncPipelineImpl(this, asyncExecutor);
         this.networkDataLockingService = networkDataLockingService;
         this.gsonBuilderConsumer = gsonBuilderConsumer;
         this.globalStorage = globalStorage;
         this.globalCache = globalCache;
         this.localCache = localCache;
         this.synchronizingService = synchronizingService;
-        this.pipelineSynchronizer = new PipelineSynchronizerImpl(this);
+        this.writeBehindQueue = new WriteBehindQueue(this);
+        this.pipelineSynchronizer = new PipelineSynchronizerImpl(this, writeBehindQueue);
         this.dataRegistry = new DataRegistryImpl(this);
 
         this.localCache
@@ -120,6 +158,16 @@ public class PipelineImpl implements Pipeline {
         return dataRegistry;
     }
 
+    @Override
+    public @NotNull AsyncPipeline async() {
+        return asyncPipeline;
+    }
+
+    @Override
+    public @NotNull PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public @NotNull GsonBuilder getGsonBuilder() {
         var builder = new GsonBuilder()
@@ -132,11 +180,18 @@ public class PipelineImpl implements Pipeline {
 
     @Override
     public void saveAll() {
-        dataRegistry
-                .getAllTypes()
-                .forEach(type -> getLocalCache()
-                        .getSavedUUIDs(type)
-                        .forEach(uuid -> sync(type, uuid)));
+        try {
+            for (Class<? extends IPipelineData> type : dataRegistry.getAllTypes()) {
+                // A failing type must not keep the other types from being saved
+                try {
+                    saveAndRemove(type, getLocalCache().getSavedUUIDs(type));
+                } catch (Throwable e) {
+                    NetworkLogger.getLogger().log(Level.SEVERE, "Error while saving " + type.getSimpleName(), e);
+                }
+            }
+        } finally {
+            writeBehindQueue.flushAll();
+        }
     }
 
     @Override
@@ -198,6 +253,85 @@ public class PipelineImpl implements Pipeline {
         }
     }
 
+    @Override
+    public @NotNull <T extends IPipelineData> Map<UUID, DataAccess<T>> loadMany(@NotNull Class<? extends T> dataClass, @NotNull Collection<UUID> uuids) {
+        Objects.requireNonNull(dataClass, "dataClass can't be null");
+        Objects.requireNonNull(uuids, "uuids can't be null");
+        if (!getDataRegistry().isTypeRegistered(dataClass))
+            throw new IllegalStateException("dataclass " + dataClass.getSimpleName() + " not registered in pipeline data registry");
+
+        // Same guarantee as load: nobody writes the objects while they are fetched
+        Lock readLocks = getNetworkDataLockingService().getReadLocks(dataClass, uuids);
+        readLocks.lock();
+        try {
+            Map<UUID, DataAccess<T>> result = new HashMap<>();
+            loadManyIntoLocalCache(dataClass, uuids).forEach((uuid, data) -> result.put(uuid, createAccess(data)));
+            return result;
+        } finally {
+            readLocks.unlock();
+        }
+    }
+
+    @Override
+    public @NotNull <T extends IPipelineData> Map<UUID, DataAccess<T>> loadOrCreateMany(@NotNull Class<? extends T> dataClass, @NotNull Collection<UUID> uuids) {
+        Map<UUID, DataAccess<T>> result = loadMany(dataClass, uuids);
+        Set<UUID> missing = new HashSet<>(uuids);
+        missing.removeAll(result.keySet());
+        if (missing.isEmpty())
+            return result;
+
+        // Like loadOrCreate the missing objects are loaded again with write locks since someone could have created them in the meantime
+        Lock writeLocks = getNetworkDataLockingService().getWriteLocks(dataClass, missing);
+        writeLocks.lock();
+        try {
+            Map<UUID, T> loaded = loadManyIntoLocalCache(dataClass, missing);
+            missing.removeAll(loaded.keySet());
+            loaded.putAll(createNewDataBatch(dataClass, missing));
+            loaded.forEach((uuid, data) -> result.put(uuid, createAccess(data)));
+            return result;
+        } finally {
+            writeLocks.unlock();
+        }
+    }
+
+    /**
+     * Loads the objects from the local cache and fetches the missing ones from the global cache and the global storage in batches.
+     * The caller has to hold the locks of all uuids.
+     */
+    private <T extends IPipelineData> Map<UUID, T> loadManyIntoLocalCache(@NotNull Class<? extends T> dataClass, @NotNull Collection<UUID> uuids) {
+        Map<UUID, T> loaded = new HashMap<>();
+        Set<UUID> missing = new HashSet<>();
+        for (UUID uuid : uuids) {
+            T cached = localCache.loadObject(dataClass, uuid);
+            if (cached != null)
+                loaded.put(uuid, cached);
+            else
+                missing.add(uuid);
+        }
+
+        PipelineDataProperties properties = AnnotationResolver.getDataProperties(dataClass);
+        if (!missing.isEmpty() && globalCache != null && properties.dataContext().isCacheAllowed())
+            loadBatchIntoLocalCache(globalCache, dataClass, missing, loaded);
+        if (!missing.isEmpty() && globalStorage != null && properties.dataContext().isStorageAllowed()) {
+            for (UUID uuid : Set.copyOf(missing)) {
+                JsonElement pendingData = writeBehindQueue.getPendingData(dataClass, uuid);
+                if (pendingData == null)
+                    continue;
+                T data = loadDeduplicated(dataClass, uuid, () -> {
+                    localCache.save(dataClass, uuid, pendingData);
+                    return localCache.loadObject(dataClass, uuid);
+                });
+                if (data != null) {
+                    loaded.put(uuid, data);
+                    missing.remove(uuid);
+                }
+            }
+            loadBatchIntoLocalCache(globalStorage, dataClass, missing, loaded);
+        }
+
+        return loaded;
+    }
+
     @Override
     public <T extends IPipelineData> Set<DataAccess<? extends T>> loadAllData(@NotNull Class<? extends T> dataClass) {
         Objects.requireNonNull(dataClass, "dataClass can't be null");
@@ -207,28 +341,13 @@ public class PipelineImpl implements Pipeline {
 
         //Syncing data from storage to local cache
         if (getGlobalStorage() != null && AnnotationResolver.getDataProperties(dataClass).dataContext()
-                .isStorageAllowed()) {
-            getGlobalStorage()
-                    .getSavedUUIDs(dataClass)
-                    .parallelStream()
-                    .forEach(uuid -> {
-                        if (!localCache.dataExist(dataClass, uuid))
-                            pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE, PipelineSynchronizer.DataSourceType.LOCAL, dataClass, uuid);
-                    });
-
-        }
+                .isStorageAllowed())
+            loadAllIntoLocalCache(getGlobalStorage(), dataClass);
 
         //Syncing data from global cache to local cache
         if (getGlobalCache() != null && AnnotationResolver.getDataProperties(dataClass).dataContext()
-                .isCacheAllowed()) {
-            getGlobalCache()
-                    .getSavedUUIDs(dataClass)
-                    .parallelStream()
-                    .forEach(uuid -> {
-                        if (!localCache.dataExist(dataClass, uuid))
-                            pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_CACHE, PipelineSynchronizer.DataSourceType.LOCAL, dataClass, uuid);
-                    });
-        }
+                .isCacheAllowed())
+            loadAllIntoLocalCache(getGlobalCache(), dataClass);
         return getLocalCache().loadAllData(dataClass).stream().map(this::createAccess).collect(Collectors.toSet());
     }
 
@@ -255,6 +374,8 @@ public class PipelineImpl implements Pipeline {
         lock.lock();
 
         try {
+            // Waits for a flush of the object that is in progress, so the storage removal below is not undone
+            writeBehindQueue.discard(dataClass, uuid);
             var deleted = getLocalCache().remove(dataClass, uuid);
             if (getSynchronizingService() != null) {
                 getSynchronizingService()
@@ -278,20 +399,58 @@ public class PipelineImpl implements Pipeline {
     private <T extends IPipelineData> T tryLoad(@NotNull Class<? extends T> dataClass, @NotNull UUID uuid) {
         if (!getDataRegistry().isTypeRegistered(dataClass))
             throw new IllegalStateException("dataclass " + dataClass.getSimpleName() + " not registered in pipeline data registry");
-        if (localCache.dataExist(dataClass, uuid)) {
-            return localCache.loadObject(dataClass, uuid);
-        } else if (globalCache != null && globalCache.dataExist(dataClass, uuid) && AnnotationResolver
-                .getDataProperties(dataClass)
-                .dataContext()
-                .isCacheAllowed()) {
-            pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_CACHE, PipelineSynchronizer.DataSourceType.LOCAL, dataClass, uuid);
+        return loadDeduplicated(dataClass, uuid, () -> loadIntoLocalCache(dataClass, uuid));
+    }
+
+    /**
+     * Loads data that is not present in the local cache with the provided loader.
+     * Concurrent calls for the same type and uuid share the result of one loader call instead of fetching the data multiple times.
+     */
+    private <T extends IPipelineData> T loadDeduplicated(@NotNull Class<? extends T> dataClass, @NotNull UUID uuid, @NotNull Supplier<T> loader) {
+        T cached = localCache.loadObject(dataClass, uuid);
+        if (cached != null)
+            return cached;
+
+        InFlightLoadKey key = new InFlightLoadKey(dataClass, uuid);
+        CompletableFuture<IPipelineData> pendingLoad = new CompletableFuture<>();
+        CompletableFuture<IPipelineData> runningLoad = inFlightLoads.putIfAbsent(key, pendingLoad);
+        if (runningLoad != null) {
+            try {
+                return dataClass.cast(runningLoad.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException)
+                    throw runtimeException;
+                throw e;
+            }
+        }
+
+        try {
+            // Another load could have finished between the local cache check and the registration of this load
+            T loaded = localCache.loadObject(dataClass, uuid);
+            if (loaded == null)
+                loaded = loader.get();
+            pendingLoad.complete(loaded);
+            return loaded;
+        } catch (Throwable e) {
+            pendingLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, pendingLoad);
+        }
+    }
+
+    /**
+     * Loads the data from the global cache or the global storage. Every tier is asked with exactly one round trip.
+     */
+    private <T extends IPipelineData> T loadIntoLocalCache(@NotNull Class<? extends T> dataClass, @NotNull UUID uuid) {
+        JsonElement pendingData = writeBehindQueue.getPendingData(dataClass, uuid);
+        if (pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_CACHE, PipelineSynchronizer.DataSourceType.LOCAL, dataClass, uuid)) {
             if (AnnotationResolver.getDataProperties(dataClass).debugMode())
                 NetworkLogger.debug("CACHE -> Local | " + dataClass + " [" + uuid + "]");
-        } else if (globalStorage != null && globalStorage.dataExist(dataClass, uuid) && AnnotationResolver
-                .getDataProperties(dataClass)
-                .dataContext()
-                .isStorageAllowed()) {
-            pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE, PipelineSynchronizer.DataSourceType.LOCAL, dataClass, uuid);
+        } else if (pendingData != null) {
+            // A deferred write is newer than the state in the storage
+            localCache.save(dataClass, uuid, pendingData);
+        } else if (pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE, PipelineSynchronizer.DataSourceType.LOCAL, dataClass, uuid)) {
             if (AnnotationResolver.getDataProperties(dataClass).debugMode())
                 NetworkLogger
                         .debug("GLOBAL -> Local | " + dataClass.getSimpleName() + " [" + uuid + "]");
@@ -300,6 +459,58 @@ public class PipelineImpl implements Pipeline {
         return localCache.loadObject(dataClass, uuid);
     }
 
+    /**
+     * Fetches the missing objects from the provider in one batch and puts them into the local cache.
+     * Found uuids are moved from missing to loaded.
+     */
+    private <T extends IPipelineData> void loadBatchIntoLocalCache(@NotNull DataProvider dataProvider, @NotNull Class<? extends T> dataClass, @NotNull Set<UUID> missing, @NotNull Map<UUID, T> loaded) {
+        Map<UUID, JsonElement> fetched = dataProvider.loadDataBatch(dataClass, missing);
+        if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+            NetworkLogger.debug("Batch loaded " + fetched.size() + "/" + missing.size() + " " + dataClass.getSimpleName() + " from " + dataProvider.getClass().getSimpleName());
+        PipelineSynchronizer.DataSourceType source = dataProvider == globalCache ? PipelineSynchronizer.DataSourceType.GLOBAL_CACHE : PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE;
+        fetched.forEach((uuid, json) -> {
+            T data = loadDeduplicated(dataClass, uuid, () -> {
+                localCache.save(dataClass, uuid, json);
+                T loadedData = localCache.loadObject(dataClass, uuid);
+                if (loadedData != null)
+                    loadedData.markSynced(json, source);
+                return loadedData;
+            });
+            if (data == null)
+                return;
+            loaded.put(uuid, data);
+            missing.remove(uuid);
+        });
+    }
+
+    /**
+     * Fetches all objects of the provider that are not in the local cache yet in batches of {@link #LOAD_ALL_BATCH_SIZE}.
+     */
+    private <T extends IPipelineData> void loadAllIntoLocalCache(@NotNull DataProvider dataProvider, @NotNull Class<? extends T> dataClass) {
+        Set<UUID> missing = new HashSet<>();
+        for (UUID uuid : dataProvider.getSavedUUIDs(dataClass)) {
+            if (localCache.dataExist(dataClass, uuid))
+                continue;
+            missing.add(uuid);
+            if (missing.size() == LOAD_ALL_BATCH_SIZE) {
+                loadLockedBatchIntoLocalCache(dataProvider, dataClass, missing);
+                missing.clear();
+            }
+        }
+        if (!missing.isEmpty())
+            loadLockedBatchIntoLocalCache(dataProvider, dataClass, missing);
+    }
+
+    private <T extends IPipelineData> void loadLockedBatchIntoLocalCache(@NotNull DataProvider dataProvider, @NotNull Class<? extends T> dataClass, @NotNull Set<UUID> missing) {
+        Lock readLocks = getNetworkDataLockingService().getReadLocks(dataClass, missing);
+        readLocks.lock();
+        try {
+            loadBatchIntoLocalCache(dataProvider, dataClass, missing, new HashMap<>());
+        } finally {
+            readLocks.unlock();
+        }
+    }
+
     private <T extends IPipelineData> boolean checkExistence(@NotNull Class<? extends T> dataClass, @NotNull UUID uuid) {
         boolean localExist = getLocalCache().dataExist(dataClass, uuid);
         if (localExist) return true;
@@ -309,22 +520,53 @@ public class PipelineImpl implements Pipeline {
             if (globalCacheExists) return true;
         }
 
+        if (writeBehindQueue.getPendingData(dataClass, uuid) != null) return true;
         if (getGlobalStorage() != null) return getGlobalStorage().dataExist(dataClass, uuid);
         return false;
     }
 
-    private <T extends IPipelineData> void sync(@NotNull Class<? extends T> type, UUID uuid) {
+    /**
+     * Writes local objects to the global cache and removes them from the local cache.
+     * The global storage receives the objects in batches of {@link #SAVE_ALL_BATCH_SIZE}.
+     */
+    private <T extends IPipelineData> void saveAndRemove(@NotNull Class<? extends T> type, @NotNull Collection<UUID> uuids) {
         Objects.requireNonNull(type);
-        Objects.requireNonNull(uuid);
-        IPipelineData data = getLocalCache().loadObject(type, uuid);
-        if (data == null) return;
-        //TODO: Mark for Removal in Pipeline
+        Objects.requireNonNull(uuids);
+        Map<IPipelineData, JsonElement> batch = new HashMap<>();
+        for (UUID uuid : uuids) {
+            IPipelineData data = getLocalCache().loadObject(type, uuid);
+            if (data == null) continue;
+            //TODO: Mark for Removal in Pipeline
 /*        if (data.isMarkedForRemoval())
             return;*/
-        data.cleanUp();
-        pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.LOCAL, PipelineSynchronizer.DataSourceType.GLOBAL_CACHE, type, uuid);
-        pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.LOCAL, PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE, type, uuid);
-        getLocalCache().remove(type, uuid);
+            data.cleanUp();
+            JsonElement serialized = data.serialize();
+            try {
+                pipelineSynchronizer.saveIfChanged(data, serialized, PipelineSynchronizer.DataSourceType.GLOBAL_CACHE);
+            } catch (Throwable e) {
+                NetworkLogger.getLogger().log(Level.SEVERE, "Error while saving " + type.getSimpleName() + " [" + uuid + "] to the global cache", e);
+            }
+            batch.put(data, serialized);
+            if (batch.size() == SAVE_ALL_BATCH_SIZE)
+                saveStorageBatchAndRemove(type, batch);
+        }
+        saveStorageBatchAndRemove(type, batch);
+    }
+
+    /**
+     * Objects of a batch that could not be written stay in the local cache, so the data is not lost while the pipeline is running.
+     */
+    private void saveStorageBatchAndRemove(@NotNull Class<? extends IPipelineData> type, @NotNull Map<IPipelineData, JsonElement> batch) {
+        if (batch.isEmpty())
+            return;
+        try {
+            pipelineSynchronizer.saveStorageBatchIfChanged(type, batch);
+            batch.keySet().forEach(data -> getLocalCache().remove(type, data.getObjectUUID()));
+        } catch (Throwable e) {
+            NetworkLogger.getLogger().log(Level.SEVERE, "Error while saving a batch of " + batch.size() + " " + type.getSimpleName() + " to the global storage", e);
+        } finally {
+            batch.clear();
+        }
     }
 
     private <S extends IPipelineData> void preloadData(Class<? extends S> type) {
@@ -343,14 +585,19 @@ public class PipelineImpl implements Pipeline {
                         if (pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_CACHE, PipelineSynchronizer.DataSourceType.LOCAL, type, uuid))
                             alreadyLoaded.add(uuid);
                     });
+        // The whole storage of the type is read with one streaming query instead of one load per object
         if (globalStorage != null && dataProperties
                 .dataContext()
-                .isCacheAllowed())
-            globalStorage
-                    .getSavedUUIDs(type)
-                    .stream()
-                    .filter(uuid -> !alreadyLoaded.contains(uuid))
-                    .forEach(uuid -> pipelineSynchronizer.synchronizePipelineData(PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE, PipelineSynchronizer.DataSourceType.LOCAL, type, uuid));
+                .isCacheAllowed()
+                && dataProperties.dataContext().isStorageAllowed())
+            globalStorage.loadAll(type, (uuid, data) -> {
+                if (alreadyLoaded.contains(uuid))
+                    return;
+                localCache.save(type, uuid, data);
+                IPipelineData loadedData = localCache.loadObject(type, uuid);
+                if (loadedData != null)
+                    loadedData.markSynced(data, PipelineSynchronizer.DataSourceType.GLOBAL_STORAGE);
+            });
     }
 
     private <T extends IPipelineData> T createNewData(@NotNull Class<? extends T> dataClass, @NotNull UUID uuid, @Nullable Consumer<T> immediateWriteOperation) {
@@ -388,6 +635,39 @@ public class PipelineImpl implements Pipeline {
 
     }
 
+    /**
+     * Creates several objects of one type. The global cache and the global storage receive the new objects with one batch each.
+     */
+    private <T extends IPipelineData> Map<UUID, T> createNewDataBatch(@NotNull Class<? extends T> dataClass, @NotNull Collection<UUID> uuids) {
+        Map<UUID, T> created = new HashMap<>();
+        if (uuids.isEmpty())
+            return created;
+        PipelineDataProperties properties = AnnotationResolver.getDataProperties(dataClass);
+        if (properties.debugMode())
+            NetworkLogger.debug("[Pipeline] Creating " + uuids.size() + " new data of type: " + dataClass.getSimpleName());
+
+        Map<UUID, JsonElement> serialized = new HashMap<>();
+        for (UUID uuid : uuids) {
+            T pipelineData = localCache.instantiateData(dataClass, uuid);
+            pipelineData.loadDependentData();
+            pipelineData.onCreate();
+            localCache.saveObject(pipelineData);
+            created.put(uuid, pipelineData);
+            serialized.put(uuid, pipelineData.serialize());
+        }
+
+        if (getGlobalCache() != null && properties.dataContext().isCacheAllowed())
+            getGlobalCache().saveBatch(dataClass, serialized);
+        if (getGlobalStorage() != null && properties.dataContext().isStorageAllowed())
+            getGlobalStorage().saveBatch(dataClass, serialized);
+
+        if (getSynchronizingService() != null) {
+            var synchronizer = getSynchronizingService().getOrCreate(this, dataClass);
+            created.values().forEach(synchronizer::pushCreation);
+        }
+        return created;
+    }
+
     @Override
     public synchronized void shutdown() {
         if (!this.ready) {
@@ -397,21 +677,35 @@ public class PipelineImpl implements Pipeline {
         this.ready = false;
 
         NetworkLogger.info("Saving all data");
-        saveAll();
-
-        NetworkLogger.info("Shutting down pipeline synchronizer");
-        getPipelineSynchronizer().shutdown();
-
-        NetworkLogger.info("Shutting down data providers");
+        try {
+            saveAll();
+        } finally {
+            NetworkLogger.info("Shutting down pipeline synchronizer");
+            // Every part is shut down even if another part fails
+            shutdownPart("pipeline synchronizer", getPipelineSynchronizer()::shutdown);
+            shutdownPart("write behind queue", writeBehindQueue::shutdown);
+
+            NetworkLogger.info("Shutting down data providers");
+
+            if (getGlobalStorage() != null)
+                shutdownPart("global storage", getGlobalStorage()::shutdown);
+            if (getGlobalCache() != null)
+                shutdownPart("global cache", getGlobalCache()::shutdown);
+            if (getSynchronizingService() != null)
+                shutdownPart("synchronizing service", getSynchronizingService()::shutdown);
+            shutdownPart("local cache", getLocalCache()::shutdown);
+            if (ownedAsyncExecutor != null)
+                ownedAsyncExecutor.shutdown();
+            NetworkLogger.info("Pipeline offline");
+        }
+    }
 
-        if (getGlobalStorage() != null)
-            getGlobalStorage().shutdown();
-        if (getGlobalCache() != null)
-            getGlobalCache().shutdown();
-        if (getSynchronizingService() != null)
-            getSynchronizingService().shutdown();
-        getLocalCache().shutdown();
-        NetworkLogger.info("Pipeline offline");
+    private void shutdownPart(@NotNull String name, @NotNull Runnable shutdown) {
+        try {
+            shutdown.run();
+        } catch (Throwable e) {
+            NetworkLogger.getLogger().log(Level.SEVERE, "Error while shutting down " + name, e);
+        }
     }
 
     @Override
@@ -433,4 +727,7 @@ public class PipelineImpl implements Pipeline {
     private <T extends IPipelineData> DataAccess<T> createAccess(@NotNull T data) {
         return getLocalCache().createAccess((Class<? extends T>) data.getClass(), data.getObjectUUID());
     }
+
+    private record InFlightLoadKey(Class<? extends IPipelineData> dataClass, UUID uuid) {
+    }
 }
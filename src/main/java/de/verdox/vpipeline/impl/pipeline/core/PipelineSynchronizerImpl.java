@@ -10,10 +10,20 @@ import de.verdox.vpipeline.api.pipeline.parts.DataProvider;
 import de.verdox.vpipeline.api.util.AnnotationResolver;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 
-public record PipelineSynchronizerImpl(Pipeline pipeline) implements PipelineSynchronizer {
+public record PipelineSynchronizerImpl(Pipeline pipeline, WriteBehindQueue writeBehindQueue) implements PipelineSynchronizer {
+    /**
+     * Returned by {@link #saveIfChanged(IPipelineData, JsonElement, DataSourceType)} if the data was not written
+     */
+    static final long UNCHANGED = -1;
+
     @Override
     public boolean synchronizePipelineData(@NotNull DataSourceType source, @NotNull DataSourceType destination, @NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
         verifyInput(source, destination, dataClass, objectUUID);
@@ -40,43 +50,132 @@ public record PipelineSynchronizerImpl(Pipeline pipeline) implements PipelineSyn
         if(sourceProvider.equals(destinationProvider))
             return true;
 
-        if (!sourceProvider.dataExist(dataClass, objectUUID)) {
-            NetworkLogger
-                    .warning("Can't sync because data does not exist in " + source + " for " + dataClass.getSimpleName());
-            return false;
-        }
-
-        JsonElement data = sourceProvider.loadData(dataClass, objectUUID);
-        if (data == null) {
-            NetworkLogger
-                    .warning("Data is null in " + source + " for " + dataClass.getSimpleName());
+        // Existence check and load are done in one round trip. A miss is a regular outcome for cold loads.
+        Optional<JsonElement> data = sourceProvider.loadDataIfPresent(dataClass, objectUUID);
+        if (data.isEmpty()) {
+            if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                NetworkLogger
+                        .debug("Can't sync because data does not exist in " + source + " for " + dataClass.getSimpleName() + " [" + objectUUID + "]");
             return false;
         }
 
         if (AnnotationResolver.getDataProperties(dataClass).debugMode())
             NetworkLogger
                     .debug("Sync from " + source + " to " + destination + " for " + dataClass.getSimpleName() + " [" + objectUUID + "]");
-        destinationProvider.save(dataClass, objectUUID, data);
+        destinationProvider.save(dataClass, objectUUID, data.get());
+        // The loaded state does not have to be written back to where it came from
+        if (destination.equals(DataSourceType.LOCAL)) {
+            IPipelineData localObject = pipeline.getLocalCache().loadObject(dataClass, objectUUID);
+            if (localObject != null)
+                localObject.markSynced(data.get(), source);
+        }
         return true;
     }
 
     @Override
     public void sync(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, boolean syncWithStorage) {
-        if(!pipeline.getLocalCache().dataExist(dataClass, objectUUID))
+        IPipelineData localObject = pipeline.getLocalCache().loadObject(dataClass, objectUUID);
+        if (localObject == null)
             return;
-        synchronizePipelineData(PipelineSynchronizer.DataSourceType.LOCAL, PipelineSynchronizer.DataSourceType.GLOBAL_CACHE, dataClass, objectUUID);
-        if(syncWithStorage)
-            synchronizePipelineData(PipelineSynchronizer.DataSourceType.LOCAL, DataSourceType.GLOBAL_STORAGE, dataClass, objectUUID);
-        syncLocalInstances(dataClass, objectUUID);
+        // The object is serialized once and the result is shared by all destinations
+        JsonElement serialized = localObject.serialize();
+        // The global cache and the other network nodes always receive the same state and version
+        long version = saveIfChanged(localObject, serialized, DataSourceType.GLOBAL_CACHE);
+        if (version != UNCHANGED)
+            syncLocalInstances(localObject, serialized, version);
+        if (syncWithStorage)
+            saveIfChanged(localObject, serialized, DataSourceType.GLOBAL_STORAGE);
     }
 
-    void syncLocalInstances(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
-        IPipelineData localObject = pipeline.getLocalCache().loadObjectOrThrow(dataClass, objectUUID);
-        DataSynchronizer dataSynchronizer = localObject.getSynchronizer();
+    @Override
+    public void persist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        IPipelineData localObject = pipeline.getLocalCache().loadObject(dataClass, objectUUID);
+        if (localObject == null)
+            return;
+        JsonElement serialized = localObject.serialize();
+        saveIfChanged(localObject, serialized, DataSourceType.GLOBAL_CACHE);
+        saveIfChanged(localObject, serialized, DataSourceType.GLOBAL_STORAGE);
+    }
+
+    @Override
+    public boolean discardPendingWrites(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        return writeBehindQueue.discard(dataClass, objectUUID);
+    }
+
+    /**
+     * Writes the serialized data to the destination if it changed since it was last written there.
+     *
+     * @return {@link #UNCHANGED} if the data did not change since the last write,
+     * otherwise the version the global cache assigned to the data or 0 if there is none
+     */
+    long saveIfChanged(@NotNull IPipelineData data, @NotNull JsonElement serialized, @NotNull DataSourceType destination) {
+        Class<? extends IPipelineData> dataClass = data.getClass();
+        if (!data.checkAndUpdateSyncState(serialized, destination)) {
+            pipeline.getMetrics().recordSkippedSync();
+            if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                NetworkLogger.debug("Skipping sync to " + destination + " of unchanged " + dataClass.getSimpleName() + " [" + data.getObjectUUID() + "]");
+            return UNCHANGED;
+        }
+        if (!isAllowed(destination, dataClass))
+            return 0;
+        long version = 0;
+        try {
+            if (destination.equals(DataSourceType.GLOBAL_STORAGE) && isWriteBehind(dataClass))
+                writeBehindQueue.enqueue(dataClass, data.getObjectUUID(), serialized);
+            else if (destination.equals(DataSourceType.GLOBAL_CACHE))
+                version = pipeline.getGlobalCache().saveVersioned(dataClass, data.getObjectUUID(), serialized);
+            else
+                getProvider(destination).save(dataClass, data.getObjectUUID(), serialized);
+        } catch (Throwable e) {
+            // The next sync has to write the data again
+            data.markDirty();
+            throw e;
+        }
+        pipeline.getMetrics().recordPerformedSync();
+        return version;
+    }
+
+    /**
+     * Writes the serialized data of several objects of one type to the global storage with one batch.
+     * Objects that did not change since they were last written there are skipped.
+     *
+     * @param dataClass  the type of all objects
+     * @param serialized the objects mapped to their serialized form
+     */
+    void saveStorageBatchIfChanged(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Map<IPipelineData, JsonElement> serialized) {
+        Map<UUID, JsonElement> batch = new HashMap<>();
+        List<IPipelineData> changed = new ArrayList<>();
+        serialized.forEach((data, json) -> {
+            if (!data.checkAndUpdateSyncState(json, DataSourceType.GLOBAL_STORAGE)) {
+                pipeline.getMetrics().recordSkippedSync();
+                return;
+            }
+            changed.add(data);
+            batch.put(data.getObjectUUID(), json);
+        });
+        if (batch.isEmpty() || !isAllowed(DataSourceType.GLOBAL_STORAGE, dataClass))
+            return;
+        try {
+            if (isWriteBehind(dataClass))
+                batch.forEach((objectUUID, json) -> writeBehindQueue.enqueue(dataClass, objectUUID, json));
+            else
+                pipeline.getGlobalStorage().saveBatch(dataClass, batch);
+        } catch (Throwable e) {
+            // The next sync has to write the data again
+            changed.forEach(IPipelineData::markDirty);
+            throw e;
+        }
+        changed.forEach(data -> pipeline.getMetrics().recordPerformedSync());
         if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+            NetworkLogger.debug("Saved " + batch.size() + " " + dataClass.getSimpleName() + " to " + DataSourceType.GLOBAL_STORAGE + " in one batch");
+    }
+
+    void syncLocalInstances(@NotNull IPipelineData localObject, @NotNull JsonElement serialized, long version) {
+        DataSynchronizer dataSynchronizer = localObject.getSynchronizer();
+        if (AnnotationResolver.getDataProperties(localObject.getClass()).debugMode())
             NetworkLogger
-                    .debug("Syncing local instances for " + dataClass.getSimpleName() + " [" + objectUUID + "]");
-        dataSynchronizer.pushUpdate(localObject);
+                    .debug("Syncing local instances for " + localObject.getClass().getSimpleName() + " [" + localObject.getObjectUUID() + "]");
+        dataSynchronizer.pushUpdate(localObject, serialized, version);
     }
 
     @Override
@@ -89,6 +188,20 @@ public record PipelineSynchronizerImpl(Pipeline pipeline) implements PipelineSyn
         }*/
     }
 
+    private boolean isAllowed(@NotNull DataSourceType dataSourceType, @NotNull Class<? extends IPipelineData> dataClass) {
+        var dataContext = AnnotationResolver.getDataProperties(dataClass).dataContext();
+        return switch (dataSourceType) {
+            case LOCAL -> true;
+            case GLOBAL_CACHE -> pipeline.getGlobalCache() != null && dataContext.isCacheAllowed();
+            case GLOBAL_STORAGE -> pipeline.getGlobalStorage() != null && dataContext.isStorageAllowed();
+        };
+    }
+
+    private boolean isWriteBehind(@NotNull Class<? extends IPipelineData> dataClass) {
+        var properties = AnnotationResolver.getDataProperties(dataClass);
+        return properties.writeBehind() && pipeline.getGlobalStorage() != null && properties.dataContext().isStorageAllowed();
+    }
+
     private DataProvider getProvider(@NotNull DataSourceType destination) {
         return switch (destination) {
             case LOCAL -> pipeline.getLocalCache();
@@ -0,0 +1,126 @@
+package de.verdox.vpipeline.impl.pipeline.core;
+
+import com.google.gson.JsonElement;
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.GlobalStorage;
+import de.verdox.vpipeline.api.util.AnnotationResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Defers writes to the {@link GlobalStorage} for types with {@link PipelineDataProperties#writeBehind()}.
+ * <p>
+ * Only the latest serialized state of an object is kept, so multiple writes within the flush interval result in one storage write.
+ * Pending states are flushed per type in one batch on a background thread.
+ */
+class WriteBehindQueue {
+    private final Pipeline pipeline;
+    private final Map<Class<? extends IPipelineData>, Map<UUID, JsonElement>> pending = new ConcurrentHashMap<>();
+    private final Set<Class<? extends IPipelineData>> scheduledFlushes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+
+    WriteBehindQueue(@NotNull Pipeline pipeline) {
+        this.pipeline = pipeline;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VPipeline-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the state of an object. A state that is still pending for the same object is replaced.
+     */
+    void enqueue(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID, @NotNull JsonElement data) {
+        getPending(dataClass).put(objectUUID, data);
+        if (!scheduledFlushes.add(dataClass))
+            return;
+        try {
+            scheduler.schedule(() -> flush(dataClass), AnnotationResolver.getDataProperties(dataClass).writeBehindMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The queue was shut down. Persist directly so the write is not lost.
+            scheduledFlushes.remove(dataClass);
+            flush(dataClass);
+        }
+    }
+
+    /**
+     * Returns the state that was queued but not yet written to the storage
+     */
+    @Nullable
+    JsonElement getPendingData(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Map<UUID, JsonElement> pendingOfType = pending.get(dataClass);
+        return pendingOfType == null ? null : pendingOfType.get(objectUUID);
+    }
+
+    /**
+     * Drops a pending state. Used when an object is deleted so the flush does not bring it back.
+     * Waits for a flush of the type that is in progress, so the state is not written after this call returns.
+     *
+     * @return true if a state of the object was pending or written while waiting
+     */
+    boolean discard(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+        Map<UUID, JsonElement> pendingOfType = pending.get(dataClass);
+        if (pendingOfType == null)
+            return false;
+        // A running flush only removes the states from the pending ones after they were written
+        boolean wasPending = pendingOfType.containsKey(objectUUID);
+        synchronized (pendingOfType) {
+            return pendingOfType.remove(objectUUID) != null || wasPending;
+        }
+    }
+
+    void flushAll() {
+        pending.keySet().forEach(this::flush);
+    }
+
+    void shutdown() {
+        scheduler.shutdown();
+        flushAll();
+    }
+
+    private void flush(@NotNull Class<? extends IPipelineData> dataClass) {
+        // Writes that are queued from now on schedule a new flush
+        scheduledFlushes.remove(dataClass);
+        Map<UUID, JsonElement> pendingOfType = getPending(dataClass);
+        // Flushes of the same type must not overtake each other
+        synchronized (pendingOfType) {
+            Map<UUID, JsonElement> batch = new HashMap<>(pendingOfType);
+            if (batch.isEmpty())
+                return;
+
+            GlobalStorage globalStorage = pipeline.getGlobalStorage();
+            if (globalStorage == null)
+                return;
+            try {
+                globalStorage.saveBatch(dataClass, batch);
+                // States stay visible to loads until they are written. Newer states that were queued in the meantime are kept.
+                batch.forEach(pendingOfType::remove);
+                if (AnnotationResolver.getDataProperties(dataClass).debugMode())
+                    NetworkLogger.debug("[WriteBehind] Flushed " + batch.size() + " " + dataClass.getSimpleName() + " to storage");
+            } catch (Throwable e) {
+                NetworkLogger.getLogger().log(Level.WARNING, "Error while flushing " + dataClass.getSimpleName() + " to storage. Retrying with the next flush", e);
+                if (!scheduler.isShutdown() && scheduledFlushes.add(dataClass))
+                    scheduler.schedule(() -> flush(dataClass), AnnotationResolver.getDataProperties(dataClass).writeBehindMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private Map<UUID, JsonElement> getPending(@NotNull Class<? extends IPipelineData> dataClass) {
+        return pending.computeIfAbsent(dataClass, type -> new ConcurrentHashMap<>());
+    }
+}
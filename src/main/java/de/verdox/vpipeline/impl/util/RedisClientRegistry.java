@@ -0,0 +1,67 @@
+package de.verdox.vpipeline.impl.util;
+
+import de.verdox.vpipeline.api.NetworkLogger;
+import org.jetbrains.annotations.NotNull;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Reference counted redisson clients shared by all {@link RedisConnection}s with the same settings.
+ * <p>
+ * A client is created by the first connection that acquires it and shut down when the last connection releases it.
+ */
+final class RedisClientRegistry {
+    private static final Map<Key, SharedClient> CLIENTS = new HashMap<>();
+
+    private RedisClientRegistry() {
+    }
+
+    static synchronized RedissonClient acquire(@NotNull Key key, @NotNull Supplier<Config> config) {
+        Objects.requireNonNull(key, "key can't be null!");
+        Objects.requireNonNull(config, "config can't be null!");
+        SharedClient sharedClient = CLIENTS.get(key);
+        if (sharedClient == null || sharedClient.client.isShuttingDown() || sharedClient.client.isShutdown()) {
+            sharedClient = new SharedClient(Redisson.create(config.get()));
+            CLIENTS.put(key, sharedClient);
+            NetworkLogger.debug("[RedisClientRegistry] Created redis client for " + key.addresses());
+        }
+        sharedClient.references++;
+        return sharedClient.client;
+    }
+
+    static synchronized void release(@NotNull Key key) {
+        Objects.requireNonNull(key, "key can't be null!");
+        SharedClient sharedClient = CLIENTS.get(key);
+        if (sharedClient == null)
+            return;
+        sharedClient.references--;
+        if (sharedClient.references > 0)
+            return;
+        CLIENTS.remove(key);
+        sharedClient.client.shutdown();
+        NetworkLogger.debug("[RedisClientRegistry] Shut down redis client for " + key.addresses());
+    }
+
+    /**
+     * Everything that makes two redisson clients behave differently
+     */
+    record Key(boolean clusterMode, List<String> addresses, String password, int nettyThreads, int threads,
+               int connectionPoolSize, int subscriptionConnectionPoolSize) {
+    }
+
+    private static final class SharedClient {
+        private final RedissonClient client;
+        private int references;
+
+        private SharedClient(RedissonClient client) {
+            this.client = client;
+        }
+    }
+}
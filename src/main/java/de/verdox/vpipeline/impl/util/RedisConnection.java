@@ -8,16 +8,16 @@ import de.verdox.vserializer.SerializableField;
 import de.verdox.vserializer.generic.Serializer;
 import de.verdox.vserializer.generic.SerializerBuilder;
 import org.jetbrains.annotations.NotNull;
-import org.redisson.Redisson;
 import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
-import org.redisson.codec.SerializationCodec;
+import org.redisson.client.codec.ByteArrayCodec;
 import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
 import org.redisson.config.SingleServerConfig;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 public class RedisConnection implements SystemPart, Connection {
@@ -29,13 +29,30 @@ public class RedisConnection implements SystemPart, Connection {
                     (aBoolean, list, s) -> new RedisConnection(aBoolean, list.toArray(new String[0]), s)
             )
             .build();
-    private final Config config;
-    protected RedissonClient redissonClient;
+    public static final int DEFAULT_NETTY_THREADS = 4;
+    public static final int DEFAULT_THREADS = 4;
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 64;
+    public static final int DEFAULT_SUBSCRIPTION_CONNECTION_POOL_SIZE = 50;
+
+    protected volatile RedissonClient redissonClient;
     private final boolean clusterMode;
     private final @NotNull String[] addressArray;
     private final String redisPassword;
+    private final RedisClientRegistry.Key clientKey;
 
     public RedisConnection(boolean clusterMode, @NotNull String[] addressArray, String redisPassword) {
+        this(clusterMode, addressArray, redisPassword, DEFAULT_NETTY_THREADS, DEFAULT_THREADS, DEFAULT_CONNECTION_POOL_SIZE, DEFAULT_SUBSCRIPTION_CONNECTION_POOL_SIZE);
+    }
+
+    /**
+     * Connections with equal settings share one redisson client, so components of the same participant
+     * do not open their own connection pools and thread pools.
+     * @param nettyThreads the amount of netty threads of the client
+     * @param threads the amount of threads used for listeners and futures of the client
+     * @param connectionPoolSize the maximum amount of connections per redis node
+     * @param subscriptionConnectionPoolSize the maximum amount of pub/sub connections per redis node
+     */
+    public RedisConnection(boolean clusterMode, @NotNull String[] addressArray, String redisPassword, int nettyThreads, int threads, int connectionPoolSize, int subscriptionConnectionPoolSize) {
         this.clusterMode = clusterMode;
         this.addressArray = addressArray;
         this.redisPassword = redisPassword;
@@ -43,42 +60,62 @@ public class RedisConnection implements SystemPart, Connection {
         Objects.requireNonNull(redisPassword, "redisPassword can't be null!");
         if (addressArray.length == 0)
             throw new IllegalArgumentException("Address Array empty");
-        config = new Config();
+        if (nettyThreads <= 0 || threads <= 0 || connectionPoolSize <= 0 || subscriptionConnectionPoolSize <= 0)
+            throw new IllegalArgumentException("Thread counts and pool sizes must be positive");
+        this.clientKey = new RedisClientRegistry.Key(clusterMode, List.of(addressArray), redisPassword, nettyThreads, threads, connectionPoolSize, subscriptionConnectionPoolSize);
+    }
+
+    private Config createConfig() {
+        Config config = new Config();
 
         if (clusterMode) {
             ClusterServersConfig clusterServersConfig = config.useClusterServers();
             clusterServersConfig.addNodeAddress(addressArray);
+            clusterServersConfig.setMasterConnectionPoolSize(clientKey.connectionPoolSize());
+            clusterServersConfig.setSubscriptionConnectionPoolSize(clientKey.subscriptionConnectionPoolSize());
 
             if (!redisPassword.isEmpty())
-                clusterServersConfig.addNodeAddress(addressArray).setPassword(redisPassword);
-            else
-                clusterServersConfig.addNodeAddress(addressArray);
+                clusterServersConfig.setPassword(redisPassword);
         } else {
             SingleServerConfig singleServerConfig = config.useSingleServer();
             singleServerConfig.setSubscriptionsPerConnection(30);
+            singleServerConfig.setAddress(addressArray[0]);
+            singleServerConfig.setConnectionPoolSize(clientKey.connectionPoolSize());
+            singleServerConfig.setConnectionMinimumIdleSize(Math.min(singleServerConfig.getConnectionMinimumIdleSize(), clientKey.connectionPoolSize()));
+            singleServerConfig.setSubscriptionConnectionPoolSize(clientKey.subscriptionConnectionPoolSize());
+            singleServerConfig.setSubscriptionConnectionMinimumIdleSize(Math.min(singleServerConfig.getSubscriptionConnectionMinimumIdleSize(), clientKey.subscriptionConnectionPoolSize()));
 
             if (!redisPassword.isEmpty())
-                singleServerConfig.setAddress(addressArray[0]).setPassword(redisPassword);
-            else
-                singleServerConfig.setAddress(addressArray[0]);
+                singleServerConfig.setPassword(redisPassword);
         }
-        config.setNettyThreads(4);
-        config.setThreads(4);
+        config.setNettyThreads(clientKey.nettyThreads());
+        config.setThreads(clientKey.threads());
+        return config;
     }
 
     public RTopic getTopic(String prefix, @NotNull Class<? extends IPipelineData> dataClass) {
+        return getRedissonClient().getTopic(getTopicName(prefix, dataClass), ByteArrayCodec.INSTANCE);
+    }
+
+    public static String getTopicName(String prefix, @NotNull Class<? extends IPipelineData> dataClass) {
         Objects.requireNonNull(dataClass, "dataClass can't be null!");
-        String key = prefix + "DataTopic:" + AnnotationResolver.getDataStorageClassifier(dataClass) + "_" + AnnotationResolver.getDataStorageIdentifier(dataClass);
-        return redissonClient.getTopic(key, new SerializationCodec());
+        return prefix + "DataTopic:" + AnnotationResolver.getDataStorageClassifier(dataClass) + "_" + AnnotationResolver.getDataStorageIdentifier(dataClass);
     }
 
+    /**
+     * Returns the shared client
+     * @throws IllegalStateException if the connection is not connected or was closed
+     */
     public RedissonClient getRedissonClient() {
+        RedissonClient redissonClient = this.redissonClient;
+        if (redissonClient == null)
+            throw new IllegalStateException("Redis connection closed");
         return redissonClient;
     }
 
     @Override
     public void shutdown() {
-        this.redissonClient.shutdown();
+        disconnect();
     }
 
     public boolean isClusterMode() {
@@ -93,13 +130,40 @@ public class RedisConnection implements SystemPart, Connection {
         return redisPassword;
     }
 
+    /**
+     * Acquires the shared client. Connecting an already connected instance has no effect.
+     */
     @Override
-    public void connect() {
-        this.redissonClient = Redisson.create(config);
+    public synchronized void connect() {
+        if (this.redissonClient != null)
+            return;
+        this.redissonClient = RedisClientRegistry.acquire(clientKey, this::createConfig);
     }
 
+    /**
+     * Releases the shared client. It is shut down once no connection uses it anymore.
+     */
     @Override
-    public void disconnect() {
-        this.redissonClient.shutdown();
+    public synchronized void disconnect() {
+        if (this.redissonClient == null)
+            return;
+        this.redissonClient = null;
+        RedisClientRegistry.release(clientKey);
+    }
+
+    public int getNettyThreads() {
+        return clientKey.nettyThreads();
+    }
+
+    public int getThreads() {
+        return clientKey.threads();
+    }
+
+    public int getConnectionPoolSize() {
+        return clientKey.connectionPoolSize();
+    }
+
+    public int getSubscriptionConnectionPoolSize() {
+        return clientKey.subscriptionConnectionPoolSize();
     }
 }
@@ -0,0 +1,97 @@
+package de.verdox.vpipeline.impl.util;
+
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.util.WireFormat;
+import org.jetbrains.annotations.NotNull;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Advertises the newest {@link WireFormat} version this node can read and negotiates the lowest common version of the network.
+ * <p>
+ * Every node keeps an entry in a sorted set whose score is the time the entry expires at. Entries of nodes that stopped refreshing them
+ * are removed once they expired, so the network moves to a newer version after the last old node left.
+ */
+public class WireFormatNegotiator {
+    public static final String ADVERTISEMENT_KEY = "VPipeline:WireFormats";
+    public static final long REFRESH_INTERVAL_SECONDS = 10;
+    public static final long ADVERTISEMENT_TTL_SECONDS = 30;
+
+    private final UUID negotiatorUUID = UUID.randomUUID();
+    private final RScoredSortedSet<String> advertisements;
+    private ScheduledExecutorService scheduler;
+
+    public WireFormatNegotiator(@NotNull RedissonClient redissonClient) {
+        Objects.requireNonNull(redissonClient, "redissonClient can't be null!");
+        this.advertisements = redissonClient.getScoredSortedSet(ADVERTISEMENT_KEY, StringCodec.INSTANCE);
+    }
+
+    /**
+     * Advertises the version of this node and negotiates the version once before messages are sent, then keeps both up to date
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VPipeline-WireFormatNegotiator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL_SECONDS, REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null)
+            return;
+        scheduler.shutdownNow();
+        scheduler = null;
+        WireFormat.removeNegotiatedVersion(negotiatorUUID);
+        try {
+            advertisements.remove(getAdvertisement());
+        } catch (Exception e) {
+            NetworkLogger.getLogger().log(Level.WARNING, "Could not remove the wire format advertisement", e);
+        }
+    }
+
+    /**
+     * Refreshes the advertisement of this node and stores the lowest version advertised by any node of the network.
+     * If redis can't be reached the last negotiated version is kept.
+     */
+    void refresh() {
+        try {
+            long now = System.currentTimeMillis();
+            advertisements.add(now + TimeUnit.SECONDS.toMillis(ADVERTISEMENT_TTL_SECONDS), getAdvertisement());
+            advertisements.removeRangeByScore(Double.NEGATIVE_INFINITY, true, now, true);
+            WireFormat.setNegotiatedVersion(negotiatorUUID, lowestVersion(advertisements.readAll()));
+        } catch (Exception e) {
+            NetworkLogger.getLogger().log(Level.WARNING, "Could not negotiate the wire format", e);
+        }
+    }
+
+    static byte lowestVersion(@NotNull Collection<String> advertisements) {
+        byte version = WireFormat.CURRENT_VERSION;
+        for (String advertisement : advertisements) {
+            int separator = advertisement.lastIndexOf(':');
+            try {
+                version = (byte) Math.min(version, Integer.parseInt(advertisement.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                NetworkLogger.warning("Ignoring malformed wire format advertisement " + advertisement);
+            }
+        }
+        return (byte) Math.max(WireFormat.LEGACY_JSON, version);
+    }
+
+    private String getAdvertisement() {
+        return negotiatorUUID + ":" + WireFormat.CURRENT_VERSION;
+    }
+}
@@ -0,0 +1,134 @@
+import de.verdox.vpipeline.api.NetworkParticipant;
+import de.verdox.vpipeline.api.VNetwork;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.AccessInvalidException;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.ConcurrentLocalCache;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.LockableAction;
+import model.data.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentLocalCacheTest {
+    public static NetworkParticipant networkParticipant;
+    public static Pipeline pipeline;
+    public static Pipeline evictingPipeline;
+    public static ConcurrentLocalCache evictingCache;
+    // Added to the system time to simulate idle objects
+    public static final AtomicLong clockOffset = new AtomicLong();
+
+    @BeforeAll
+    public static void setup() {
+        networkParticipant = VNetwork
+                .getConstructionService()
+                .createNetworkParticipant()
+                .withName("concurrentLocalCache")
+                .withPipeline(pipelineBuilder -> pipelineBuilder
+                        .withLocalCache(new ConcurrentLocalCache())
+                        .withNetworkDataLockingService(NetworkDataLockingService.createDummy())
+                ).build();
+        pipeline = networkParticipant.pipeline();
+        Class<? extends IPipelineData>[] types = new Class[]{TestData.class, OnlyLocalData.class};
+        for (Class<? extends IPipelineData> type : types) {
+            pipeline.getDataRegistry().registerType(type);
+        }
+        networkParticipant.connect();
+
+        // The background runs are too rare to interfere, eviction is triggered by the tests
+        evictingCache = new ConcurrentLocalCache(16, 10, 1, TimeUnit.HOURS, () -> System.currentTimeMillis() + clockOffset.get());
+        NetworkParticipant evictingParticipant = VNetwork
+                .getConstructionService()
+                .createNetworkParticipant()
+                .withName("evictingLocalCache")
+                .withPipeline(pipelineBuilder -> pipelineBuilder
+                        .withLocalCache(evictingCache)
+                        .withNetworkDataLockingService(NetworkDataLockingService.createDummy())
+                ).build();
+        evictingPipeline = evictingParticipant.pipeline();
+        evictingPipeline.getDataRegistry().registerType(CleanOnNoUseData.class);
+        evictingPipeline.getDataRegistry().registerType(OnlyCacheData.class);
+        evictingPipeline.getDataRegistry().registerType(OnlyLocalData.class);
+        evictingParticipant.connect();
+    }
+
+    @Test
+    public void testInsertAndRemove() {
+        UUID uuid = UUID.randomUUID();
+        pipeline.loadOrCreate(TestData.class, uuid);
+        Assertions.assertTrue(pipeline.getLocalCache().dataExist(TestData.class, uuid));
+        Assertions.assertTrue(pipeline.getLocalCache().remove(TestData.class, uuid));
+        Assertions.assertFalse(pipeline.getLocalCache().dataExist(TestData.class, uuid));
+        Assertions.assertFalse(pipeline.getLocalCache().remove(TestData.class, uuid));
+    }
+
+    @Test
+    public void testTypesAreSeparated() {
+        UUID uuid = UUID.randomUUID();
+        pipeline.loadOrCreate(TestData.class, uuid);
+        Assertions.assertTrue(pipeline.getLocalCache().dataExist(TestData.class, uuid));
+        Assertions.assertFalse(pipeline.getLocalCache().dataExist(OnlyLocalData.class, uuid));
+    }
+
+    @Test
+    public void testParallelWritesOnSameObject() throws InterruptedException {
+        UUID uuid = UUID.randomUUID();
+        pipeline.loadOrCreate(TestData.class, uuid);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    try (LockableAction.Write<TestData> write = pipeline.load(TestData.class, uuid).write()) {
+                        write.get().testInt += 1;
+                    } catch (AccessInvalidException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+            thread.join();
+
+        Assertions.assertEquals(1600, pipeline.getLocalCache().loadObjectOrThrow(TestData.class, uuid).testInt);
+    }
+
+    @Test
+    public void testIdleDataIsEvicted() {
+        UUID uuid = UUID.randomUUID();
+        evictingPipeline.loadOrCreate(CleanOnNoUseData.class, uuid);
+        evictingCache.evictExpired();
+        Assertions.assertTrue(evictingPipeline.getLocalCache().dataExist(CleanOnNoUseData.class, uuid));
+
+        clockOffset.set(TimeUnit.SECONDS.toMillis(1));
+        try {
+            evictingCache.evictExpired();
+        } finally {
+            clockOffset.set(0);
+        }
+        Assertions.assertFalse(evictingPipeline.getLocalCache().dataExist(CleanOnNoUseData.class, uuid));
+    }
+
+    @Test
+    public void testDataOverCapacityIsEvicted() {
+        List<UUID> localUUIDs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            evictingPipeline.loadOrCreate(OnlyCacheData.class, UUID.randomUUID());
+            UUID localUUID = UUID.randomUUID();
+            localUUIDs.add(localUUID);
+            evictingPipeline.loadOrCreate(OnlyLocalData.class, localUUID);
+        }
+        evictingCache.evictExpired();
+        // Local only data can't be restored and stays in the cache
+        Assertions.assertTrue(evictingPipeline.getLocalCache().getSavedUUIDs(OnlyCacheData.class).isEmpty());
+        localUUIDs.forEach(uuid -> Assertions.assertTrue(evictingPipeline.getLocalCache().dataExist(OnlyLocalData.class, uuid)));
+    }
+}
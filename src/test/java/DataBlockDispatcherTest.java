@@ -0,0 +1,121 @@
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
+import de.verdox.vpipeline.api.pipeline.parts.synchronizer.data.DataBlockDispatcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class DataBlockDispatcherTest {
+
+    @Test
+    public void testTasksOfOneObjectKeepTheirOrder() throws InterruptedException {
+        DataBlockDispatcher dispatcher = new DataBlockDispatcher(4, 100);
+        PipelineMetrics metrics = new PipelineMetrics();
+        UUID uuid = UUID.randomUUID();
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            int number = i;
+            dispatcher.dispatch(uuid, () -> {
+                processed.add(number);
+                done.countDown();
+            }, metrics);
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++)
+            Assertions.assertEquals(i, processed.get(i));
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSlowObjectDoesNotBlockOthers() throws InterruptedException {
+        DataBlockDispatcher dispatcher = new DataBlockDispatcher(2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        UUID slow = UUID.randomUUID();
+        dispatcher.dispatch(slow, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, null);
+
+        // Find an object that is assigned to the other worker
+        UUID other;
+        do
+            other = UUID.randomUUID();
+        while (Math.floorMod(other.hashCode(), 2) == Math.floorMod(slow.hashCode(), 2));
+        CountDownLatch processed = new CountDownLatch(1);
+        dispatcher.dispatch(other, processed::countDown, null);
+
+        Assertions.assertTrue(processed.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testFullQueueAppliesBackpressure() throws InterruptedException {
+        DataBlockDispatcher dispatcher = new DataBlockDispatcher(1, 1);
+        PipelineMetrics metrics = new PipelineMetrics();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UUID uuid = UUID.randomUUID();
+        dispatcher.dispatch(uuid, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, metrics);
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(uuid, () -> {}, metrics);
+
+        Thread producer = new Thread(() -> dispatcher.dispatch(uuid, () -> {}, metrics));
+        producer.start();
+        producer.join(200);
+        Assertions.assertTrue(producer.isAlive());
+        Assertions.assertEquals(1, metrics.getBackpressuredDataBlocks());
+
+        release.countDown();
+        producer.join(5000);
+        Assertions.assertFalse(producer.isAlive());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testDroppedTasksLeaveTheQueueDepth() throws InterruptedException {
+        DataBlockDispatcher dispatcher = new DataBlockDispatcher(1, 10);
+        PipelineMetrics metrics = new PipelineMetrics();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UUID uuid = UUID.randomUUID();
+        dispatcher.dispatch(uuid, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, metrics);
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++)
+            dispatcher.dispatch(uuid, () -> {}, metrics);
+        Assertions.assertEquals(5, metrics.getQueuedDataBlocks());
+
+        dispatcher.shutdown();
+        release.countDown();
+        Assertions.assertEquals(0, metrics.getQueuedDataBlocks());
+    }
+
+    @Test
+    public void testTasksAfterShutdownAreDropped() throws InterruptedException {
+        DataBlockDispatcher dispatcher = new DataBlockDispatcher(1, 10);
+        dispatcher.shutdown();
+        CountDownLatch processed = new CountDownLatch(1);
+        Assertions.assertDoesNotThrow(() -> dispatcher.dispatch(UUID.randomUUID(), processed::countDown, null));
+        Assertions.assertFalse(processed.await(100, TimeUnit.MILLISECONDS));
+    }
+}
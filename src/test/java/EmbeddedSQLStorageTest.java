@@ -0,0 +1,78 @@
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import de.verdox.vpipeline.api.pipeline.parts.storage.EmbeddedSQLStorage;
+import de.verdox.vpipeline.api.pipeline.parts.storage.SqlDialect;
+import model.data.TestData;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs the sql storage against an embedded H2 database.
+ */
+public class EmbeddedSQLStorageTest {
+    public static EmbeddedSQLStorage storage;
+
+    @BeforeAll
+    public static void setup() {
+        storage = new EmbeddedSQLStorage(Path.of("sqlStorage", "pipeline"), SqlDialect.H2);
+        storage.connect();
+    }
+
+    @AfterAll
+    public static void cleanUp() throws IOException {
+        storage.shutdown();
+        FileUtils.deleteDirectory(Path.of("sqlStorage").toFile());
+    }
+
+    @Test
+    public void testSaveReplacesDocument() {
+        UUID uuid = UUID.randomUUID();
+        storage.save(TestData.class, uuid, document(1));
+        storage.save(TestData.class, uuid, document(2));
+
+        Assertions.assertTrue(storage.dataExist(TestData.class, uuid));
+        Assertions.assertEquals(document(2), storage.loadData(TestData.class, uuid));
+    }
+
+    @Test
+    public void testSaveBatchAndLoadAll() {
+        Map<UUID, JsonElement> documents = new HashMap<>();
+        for (int i = 0; i < 25; i++)
+            documents.put(UUID.randomUUID(), document(i));
+        storage.saveBatch(TestData.class, documents);
+        // The second batch updates the existing rows
+        documents.replaceAll((uuid, document) -> document(-1));
+        storage.saveBatch(TestData.class, documents);
+
+        Map<UUID, JsonElement> loaded = new HashMap<>();
+        storage.loadAll(TestData.class, loaded::put);
+        Assertions.assertTrue(loaded.entrySet().containsAll(documents.entrySet()));
+        Assertions.assertEquals(documents, storage.loadDataBatch(TestData.class, documents.keySet()));
+    }
+
+    @Test
+    public void testRemove() {
+        UUID uuid = UUID.randomUUID();
+        storage.save(TestData.class, uuid, document(3));
+        storage.remove(TestData.class, uuid);
+
+        Assertions.assertFalse(storage.dataExist(TestData.class, uuid));
+        Assertions.assertTrue(storage.dataExistBatch(TestData.class, List.of(uuid)).isEmpty());
+    }
+
+    private static JsonElement document(int value) {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("testInt", value);
+        return jsonObject;
+    }
+}
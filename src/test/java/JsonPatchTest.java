@@ -0,0 +1,40 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import de.verdox.vpipeline.api.util.JsonPatch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JsonPatchTest {
+
+    @Test
+    public void testDiffAndApply() {
+        JsonElement source = JsonParser.parseString("{\"a\":1,\"b\":{\"c\":\"x\",\"d\":[1,2]},\"e/f\":true}");
+        JsonElement target = JsonParser.parseString("{\"a\":2,\"b\":{\"c\":\"x\",\"d\":[1,2,3]},\"g\":null}");
+
+        JsonArray patch = JsonPatch.diff(source, target);
+        Assertions.assertEquals(target, JsonPatch.apply(source, patch));
+        // The source is not modified
+        Assertions.assertEquals(JsonParser.parseString("{\"a\":1,\"b\":{\"c\":\"x\",\"d\":[1,2]},\"e/f\":true}"), source);
+    }
+
+    @Test
+    public void testUnchangedFieldsAreNotPartOfThePatch() {
+        JsonElement source = JsonParser.parseString("{\"a\":1,\"b\":\"large unchanged value\"}");
+        JsonElement target = JsonParser.parseString("{\"a\":2,\"b\":\"large unchanged value\"}");
+
+        JsonArray patch = JsonPatch.diff(source, target);
+        Assertions.assertEquals(1, patch.size());
+        Assertions.assertEquals("/a", patch.get(0).getAsJsonObject().get("path").getAsString());
+    }
+
+    @Test
+    public void testApplyingAPatchTwiceHasNoFurtherEffect() {
+        JsonElement source = JsonParser.parseString("{\"a\":1,\"b\":2}");
+        JsonElement target = JsonParser.parseString("{\"a\":3}");
+
+        JsonArray patch = JsonPatch.diff(source, target);
+        JsonElement patched = JsonPatch.apply(source, patch);
+        Assertions.assertEquals(target, JsonPatch.apply(patched, patch));
+    }
+}
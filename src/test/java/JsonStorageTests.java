@@ -1,8 +1,12 @@
+import com.google.gson.JsonElement;
 import de.verdox.vpipeline.api.NetworkParticipant;
 import de.verdox.vpipeline.api.VNetwork;
 import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalStorage;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.AccessInvalidException;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
+import de.verdox.vpipeline.api.pipeline.parts.cache.local.LockableAction;
 import model.data.*;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterAll;
@@ -12,7 +16,13 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class JsonStorageTests {
     public static NetworkParticipant networkParticipant;
@@ -29,7 +39,7 @@ public class JsonStorageTests {
                         .withNetworkDataLockingService(NetworkDataLockingService.createDummy())
                         .withGlobalStorage(globalStorage)
                 ).build();
-        Class<? extends IPipelineData>[] types = new Class[]{TestData.class, OnlyLocalData.class, OnlyCacheData.class, OnlyStorageData.class, LoadBeforeTest.class};
+        Class<? extends IPipelineData>[] types = new Class[]{TestData.class, OnlyLocalData.class, OnlyCacheData.class, OnlyStorageData.class, LoadBeforeTest.class, WriteBehindData.class};
 
         for (Class<? extends IPipelineData> type : types) {
             networkParticipant.pipeline().getDataRegistry().registerType(type);
@@ -57,4 +67,91 @@ public class JsonStorageTests {
         Assertions.assertFalse(networkParticipant.pipeline().exist(TestData.class, uuid));
     }
 
+    @Test
+    public void testAsyncLoadAfterSaveAndRemove() {
+        UUID uuid = UUID.randomUUID();
+        networkParticipant.pipeline().async().loadOrCreateAsync(TestData.class, uuid, testData -> testData.testInt = 5).join();
+        Assertions.assertTrue(networkParticipant.pipeline().async().saveAndRemoveAsync(TestData.class, uuid).join());
+        Assertions.assertFalse(networkParticipant.pipeline().getLocalCache().dataExist(TestData.class, uuid));
+
+        Assertions.assertNotNull(networkParticipant.pipeline().async().loadAsync(TestData.class, uuid).join());
+        Assertions.assertEquals(5, networkParticipant.pipeline().getLocalCache().loadObjectOrThrow(TestData.class, uuid).testInt);
+        Assertions.assertTrue(networkParticipant.pipeline().async().existAsync(TestData.class, uuid).join());
+    }
+
+    @Test
+    public void testAsyncFailsWithUnregisteredType() {
+        CompletableFuture<DataAccess<CleanOnNoUseData>> future = Assertions.assertDoesNotThrow(() -> networkParticipant.pipeline().async().loadAsync(CleanOnNoUseData.class, UUID.randomUUID()));
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    public void testLoadMany() {
+        List<UUID> stored = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        for (UUID uuid : stored) {
+            networkParticipant.pipeline().loadOrCreate(TestData.class, uuid);
+            networkParticipant.pipeline().saveAndRemoveFromLocalCache(TestData.class, uuid);
+        }
+        UUID unknown = UUID.randomUUID();
+        List<UUID> requested = new ArrayList<>(stored);
+        requested.add(unknown);
+
+        Map<UUID, DataAccess<TestData>> loaded = networkParticipant.pipeline().loadMany(TestData.class, requested);
+        Assertions.assertEquals(Set.copyOf(stored), loaded.keySet());
+        stored.forEach(uuid -> Assertions.assertTrue(networkParticipant.pipeline().getLocalCache().dataExist(TestData.class, uuid)));
+
+        Map<UUID, DataAccess<TestData>> loadedOrCreated = networkParticipant.pipeline().loadOrCreateMany(TestData.class, requested);
+        Assertions.assertEquals(Set.copyOf(requested), loadedOrCreated.keySet());
+    }
+
+    @Test
+    public void testWriteBehindCoalescesWrites() throws InterruptedException, AccessInvalidException {
+        UUID uuid = UUID.randomUUID();
+        DataAccess<WriteBehindData> access = networkParticipant.pipeline().loadOrCreate(WriteBehindData.class, uuid);
+        for (int i = 0; i < 10; i++) {
+            try (LockableAction.Write<WriteBehindData> write = access.write()) {
+                write.get().counter += 1;
+            }
+        }
+        // The creation is written directly, the updates are deferred
+        JsonElement stored = networkParticipant.pipeline().getGlobalStorage().loadDataIfPresent(WriteBehindData.class, uuid).orElseThrow();
+        Assertions.assertEquals(0, stored.getAsJsonObject().get("counter").getAsInt());
+
+        Thread.sleep(500);
+        stored = networkParticipant.pipeline().getGlobalStorage().loadDataIfPresent(WriteBehindData.class, uuid).orElseThrow();
+        Assertions.assertEquals(10, stored.getAsJsonObject().get("counter").getAsInt());
+    }
+
+    @Test
+    public void testUnchangedDataIsNotSyncedAgain() throws AccessInvalidException {
+        UUID uuid = UUID.randomUUID();
+        DataAccess<TestData> access = networkParticipant.pipeline().loadOrCreate(TestData.class, uuid);
+        try (LockableAction.Write<TestData> write = access.write()) {
+            write.get().testInt = 3;
+        }
+
+        long skippedBefore = networkParticipant.pipeline().getMetrics().getSkippedSyncs();
+        try (LockableAction.Write<TestData> write = access.write()) {
+            write.get();
+        }
+        // Neither the global cache state nor the storage state changed
+        Assertions.assertEquals(skippedBefore + 2, networkParticipant.pipeline().getMetrics().getSkippedSyncs());
+    }
+
+    @Test
+    public void testLoadedDataIsOnlySkippedForItsSource() throws AccessInvalidException {
+        UUID uuid = UUID.randomUUID();
+        networkParticipant.pipeline().loadOrCreate(TestData.class, uuid, testData -> testData.testInt = 4);
+        networkParticipant.pipeline().saveAndRemoveFromLocalCache(TestData.class, uuid);
+
+        DataAccess<TestData> access = networkParticipant.pipeline().load(TestData.class, uuid);
+        long skippedBefore = networkParticipant.pipeline().getMetrics().getSkippedSyncs();
+        try (LockableAction.Write<TestData> write = access.write()) {
+            write.get();
+        }
+        // The state was loaded from the storage, the global cache never received it
+        Assertions.assertEquals(skippedBefore + 1, networkParticipant.pipeline().getMetrics().getSkippedSyncs());
+    }
+
 }
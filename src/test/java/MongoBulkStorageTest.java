@@ -0,0 +1,147 @@
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.verdox.vpipeline.api.NetworkParticipant;
+import de.verdox.vpipeline.api.VNetwork;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
+import de.verdox.vpipeline.api.pipeline.parts.storage.MongoDBStorage;
+import model.data.TestData;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the bulk paths of the mongo storage against an in-process mongo server.
+ */
+public class MongoBulkStorageTest {
+    public static MongoServer mongoServer;
+    public static CountingMongoStorage storage;
+    public static NetworkParticipant networkParticipant;
+    public static Pipeline pipeline;
+
+    @BeforeAll
+    public static void setup() {
+        mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongoServer.bind();
+        // Small chunks so every batch is split into multiple requests
+        storage = new CountingMongoStorage(address.getPort());
+        networkParticipant = VNetwork
+                .getConstructionService()
+                .createNetworkParticipant()
+                .withName("mongoBulk")
+                .withPipeline(pipelineBuilder -> pipelineBuilder
+                        .withNetworkDataLockingService(NetworkDataLockingService.createDummy())
+                        .withGlobalStorage(storage)
+                ).build();
+        pipeline = networkParticipant.pipeline();
+        pipeline.getDataRegistry().registerType(TestData.class);
+        networkParticipant.connect();
+    }
+
+    @AfterAll
+    public static void cleanUp() {
+        storage.shutdown();
+        mongoServer.shutdownNow();
+    }
+
+    @Test
+    public void testSaveBatchUpsertsAllDocuments() {
+        Map<UUID, JsonElement> documents = documents(25, 1);
+        storage.saveBatch(TestData.class, documents);
+        // The second batch replaces the existing documents
+        storage.saveBatch(TestData.class, documents(documents.keySet(), 2));
+
+        Map<UUID, JsonElement> loaded = storage.loadDataBatch(TestData.class, documents.keySet());
+        Assertions.assertEquals(documents.keySet(), loaded.keySet());
+        loaded.values().forEach(document -> Assertions.assertEquals(2, document.getAsJsonObject().get("testInt").getAsInt()));
+        Assertions.assertEquals(documents.keySet(), storage.dataExistBatch(TestData.class, documents.keySet()));
+        Assertions.assertTrue(storage.getSavedUUIDs(TestData.class).containsAll(documents.keySet()));
+    }
+
+    @Test
+    public void testLoadAllStreamsEveryDocument() {
+        Map<UUID, JsonElement> documents = documents(15, 3);
+        storage.saveBatch(TestData.class, documents);
+
+        Set<UUID> streamed = new HashSet<>();
+        storage.loadAll(TestData.class, (uuid, document) -> streamed.add(uuid));
+        Assertions.assertTrue(streamed.containsAll(documents.keySet()));
+    }
+
+    @Test
+    public void testLoadAllDataUsesBatchReads() {
+        Map<UUID, JsonElement> documents = documents(12, 4);
+        storage.saveBatch(TestData.class, documents);
+
+        storage.reset();
+        pipeline.loadAllData(TestData.class);
+        documents.keySet().forEach(uuid -> Assertions.assertTrue(pipeline.getLocalCache().dataExist(TestData.class, uuid)));
+        Assertions.assertEquals(0, storage.singleLoads.get());
+        Assertions.assertTrue(storage.batchLoads.get() > 0);
+    }
+
+    private static Map<UUID, JsonElement> documents(int amount, int value) {
+        Set<UUID> uuids = new HashSet<>();
+        for (int i = 0; i < amount; i++)
+            uuids.add(UUID.randomUUID());
+        return documents(uuids, value);
+    }
+
+    private static Map<UUID, JsonElement> documents(Set<UUID> uuids, int value) {
+        Map<UUID, JsonElement> documents = new HashMap<>();
+        for (UUID uuid : uuids) {
+            JsonObject jsonObject = new JsonObject();
+            jsonObject.addProperty("objectUUID", uuid.toString());
+            jsonObject.addProperty("testInt", value);
+            documents.put(uuid, jsonObject);
+        }
+        return documents;
+    }
+
+    public static class CountingMongoStorage extends MongoDBStorage {
+        private final AtomicInteger singleLoads = new AtomicInteger();
+        private final AtomicInteger batchLoads = new AtomicInteger();
+
+        public CountingMongoStorage(int port) {
+            super("localhost", "pipeline", port, "", "", "", 4, 4);
+        }
+
+        void reset() {
+            singleLoads.set(0);
+            batchLoads.set(0);
+        }
+
+        @Override
+        public JsonElement loadData(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+            singleLoads.incrementAndGet();
+            return super.loadData(dataClass, objectUUID);
+        }
+
+        @Override
+        public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+            singleLoads.incrementAndGet();
+            return super.loadDataIfPresent(dataClass, objectUUID);
+        }
+
+        @Override
+        public Map<UUID, JsonElement> loadDataBatch(@NotNull Class<? extends IPipelineData> dataClass, @NotNull Collection<UUID> objectUUIDs) {
+            batchLoads.incrementAndGet();
+            return super.loadDataBatch(dataClass, objectUUIDs);
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import com.google.gson.JsonObject;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.AccessInvalidException;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataAccess;
 import de.verdox.vpipeline.api.pipeline.parts.cache.local.DataSubscriber;
@@ -7,6 +8,7 @@ import de.verdox.vpipeline.api.NetworkParticipant;
 import de.verdox.vpipeline.api.VNetwork;
 import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
 import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.DataSynchronizer;
 import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
 import de.verdox.vpipeline.api.pipeline.datatypes.SynchronizingService;
 import de.verdox.vpipeline.api.pipeline.parts.GlobalCache;
@@ -174,6 +176,34 @@ public class PipelineSyncTest {
         }
     }
 
+    /**
+     * Checks if an update that is not newer than the local state is dropped on the remote pipeline
+     */
+    @Test
+    public void testStaleUpdateIsDropped() throws InterruptedException {
+        UUID uuid = UUID.randomUUID();
+        DataAccess<TestData> access = pipeline.loadOrCreate(TestData.class, uuid);
+        remotePipeline.loadOrCreate(TestData.class, uuid);
+        try (LockableAction.Write<TestData> write = access.write()) {
+            write.get().testInt = 1;
+            write.get().save(true);
+        } catch (AccessInvalidException e) {
+            throw new RuntimeException(e);
+        }
+        Thread.sleep(50);
+
+        TestData remoteData = remotePipeline.getLocalCache().loadObject(TestData.class, uuid);
+        long version = remoteData.getNetworkVersion();
+        Assertions.assertTrue(version > 0);
+        JsonObject staleState = remoteData.serialize().getAsJsonObject();
+        staleState.addProperty("testInt", 99);
+        long staleBefore = remotePipeline.getMetrics().getStaleDataBlocks();
+        new DataSynchronizer.UpdateDataBlock(UUID.randomUUID(), uuid, staleState.toString(), version).process(TestData.class, remotePipeline);
+
+        Assertions.assertEquals(1, remoteData.testInt);
+        Assertions.assertEquals(staleBefore + 1, remotePipeline.getMetrics().getStaleDataBlocks());
+    }
+
     /**
      * Checks if data that was updated in parallel by two pipelines has the correct state on both pipelines after the operation
      */
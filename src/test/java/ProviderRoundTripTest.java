@@ -0,0 +1,98 @@
+import com.google.gson.JsonElement;
+import de.verdox.vpipeline.api.NetworkParticipant;
+import de.verdox.vpipeline.api.VNetwork;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.IPipelineData;
+import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
+import de.verdox.vpipeline.api.pipeline.parts.storage.JsonFileStorage;
+import model.data.TestData;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the requests a cold load sends to the global storage.
+ */
+public class ProviderRoundTripTest {
+    public static NetworkParticipant networkParticipant;
+    public static Pipeline pipeline;
+    public static CountingStorage storage;
+
+    @BeforeAll
+    public static void setup() {
+        storage = new CountingStorage(Path.of("roundTripStorage"));
+        networkParticipant = VNetwork
+                .getConstructionService()
+                .createNetworkParticipant()
+                .withName("roundTrips")
+                .withPipeline(pipelineBuilder -> pipelineBuilder
+                        .withNetworkDataLockingService(NetworkDataLockingService.createDummy())
+                        .withGlobalStorage(storage)
+                ).build();
+        pipeline = networkParticipant.pipeline();
+        pipeline.getDataRegistry().registerType(TestData.class);
+        networkParticipant.connect();
+    }
+
+    @AfterAll
+    public static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(Path.of("roundTripStorage").toFile());
+    }
+
+    @Test
+    public void testColdLoadHitCostsOneRoundTrip() {
+        UUID uuid = UUID.randomUUID();
+        pipeline.loadOrCreate(TestData.class, uuid);
+        pipeline.saveAndRemoveFromLocalCache(TestData.class, uuid);
+
+        storage.reset();
+        Assertions.assertNotNull(pipeline.load(TestData.class, uuid));
+        Assertions.assertEquals(1, storage.requests.get());
+    }
+
+    @Test
+    public void testColdLoadMissCostsOneRoundTrip() {
+        storage.reset();
+        Assertions.assertNull(pipeline.load(TestData.class, UUID.randomUUID()));
+        Assertions.assertEquals(1, storage.requests.get());
+    }
+
+    public static class CountingStorage extends JsonFileStorage {
+        private final AtomicInteger requests = new AtomicInteger();
+
+        public CountingStorage(Path path) {
+            super(path);
+        }
+
+        void reset() {
+            requests.set(0);
+        }
+
+        @Override
+        public JsonElement loadData(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+            requests.incrementAndGet();
+            return super.loadData(dataClass, objectUUID);
+        }
+
+        @Override
+        public boolean dataExist(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+            requests.incrementAndGet();
+            return super.dataExist(dataClass, objectUUID);
+        }
+
+        @Override
+        public Optional<JsonElement> loadDataIfPresent(@NotNull Class<? extends IPipelineData> dataClass, @NotNull UUID objectUUID) {
+            requests.incrementAndGet();
+            return super.loadDataIfPresent(dataClass, objectUUID);
+        }
+    }
+}
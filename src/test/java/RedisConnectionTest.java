@@ -0,0 +1,99 @@
+import de.verdox.vpipeline.impl.util.RedisConnection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import redis.embedded.RedisServer;
+
+public class RedisConnectionTest {
+    private static final String ADDRESS = "redis://127.0.0.1:6381";
+    private static RedisServer redisServer = null;
+
+    @BeforeAll
+    public static void setup() {
+        if (redisServer == null) {
+            redisServer = RedisServer.builder()
+                    .port(6381)
+                    .setting("bind 127.0.0.1") // secure + prevents popups on Windows
+                    .setting("maxmemory 128M")
+                    .build();
+            redisServer.start();
+        }
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        if (redisServer != null) {
+            redisServer.stop();
+            redisServer = null;
+        }
+    }
+
+    @Test
+    public void testEqualSettingsShareOneClient() {
+        RedisConnection first = new RedisConnection(false, new String[]{ADDRESS}, "");
+        RedisConnection second = new RedisConnection(false, new String[]{ADDRESS}, "");
+        first.connect();
+        second.connect();
+        try {
+            Assertions.assertSame(first.getRedissonClient(), second.getRedissonClient());
+        } finally {
+            first.disconnect();
+            second.disconnect();
+        }
+    }
+
+    @Test
+    public void testDifferentSettingsUseDifferentClients() {
+        RedisConnection first = new RedisConnection(false, new String[]{ADDRESS}, "");
+        RedisConnection second = new RedisConnection(false, new String[]{ADDRESS}, "", 2, 2, 8, 8);
+        first.connect();
+        second.connect();
+        try {
+            Assertions.assertNotSame(first.getRedissonClient(), second.getRedissonClient());
+        } finally {
+            first.disconnect();
+            second.disconnect();
+        }
+    }
+
+    @Test
+    public void testClientIsShutDownWithTheLastConnection() {
+        RedisConnection first = new RedisConnection(false, new String[]{ADDRESS}, "");
+        RedisConnection second = new RedisConnection(false, new String[]{ADDRESS}, "");
+        first.connect();
+        second.connect();
+        RedissonClient client = first.getRedissonClient();
+
+        first.disconnect();
+        Assertions.assertFalse(client.isShutdown());
+        second.getRedissonClient().getBucket("redisConnectionTest").set("value");
+
+        second.disconnect();
+        Assertions.assertTrue(client.isShuttingDown() || client.isShutdown());
+    }
+
+    @Test
+    public void testReconnectAcquiresNewClient() {
+        RedisConnection connection = new RedisConnection(false, new String[]{ADDRESS}, "");
+        connection.connect();
+        RedissonClient client = connection.getRedissonClient();
+        connection.disconnect();
+
+        connection.connect();
+        try {
+            Assertions.assertNotSame(client, connection.getRedissonClient());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testClosedConnectionThrows() {
+        RedisConnection connection = new RedisConnection(false, new String[]{ADDRESS}, "");
+        connection.connect();
+        connection.disconnect();
+        Assertions.assertThrows(IllegalStateException.class, connection::getRedissonClient);
+    }
+}
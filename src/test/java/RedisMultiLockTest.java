@@ -0,0 +1,94 @@
+import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
+import de.verdox.vpipeline.impl.util.RedisConnection;
+import model.data.TestData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+public class RedisMultiLockTest {
+    private static RedisServer redisServer = null;
+    private static NetworkDataLockingService lockingService;
+
+    @BeforeAll
+    public static void setup() {
+        if (redisServer == null) {
+            redisServer = RedisServer.builder()
+                    .port(6382)
+                    .setting("bind 127.0.0.1") // secure + prevents popups on Windows
+                    .setting("maxmemory 128M")
+                    .build();
+            redisServer.start();
+        }
+        lockingService = NetworkDataLockingService.createRedis(new RedisConnection(false, new String[]{"redis://127.0.0.1:6382"}, ""));
+        lockingService.connect();
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        lockingService.disconnect();
+        if (redisServer != null) {
+            redisServer.stop();
+            redisServer = null;
+        }
+    }
+
+    @Test
+    public void testMultiLockHoldsEveryLock() throws Exception {
+        List<UUID> uuids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        Lock readLocks = lockingService.getReadLocks(TestData.class, uuids);
+        readLocks.lock();
+        try {
+            // The locks are owned by this thread, so the writer has to run on another one
+            Boolean writable = CompletableFuture.supplyAsync(() -> {
+                Lock writeLock = lockingService.getWriteLock(TestData.class, uuids.get(1));
+                boolean acquired = writeLock.tryLock();
+                if (acquired)
+                    writeLock.unlock();
+                return acquired;
+            }).get(5, TimeUnit.SECONDS);
+            Assertions.assertFalse(writable);
+        } finally {
+            readLocks.unlock();
+        }
+        Boolean writable = CompletableFuture.supplyAsync(() -> {
+            Lock writeLocks = lockingService.getWriteLocks(TestData.class, uuids);
+            boolean acquired = writeLocks.tryLock();
+            if (acquired)
+                writeLocks.unlock();
+            return acquired;
+        }).get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(writable);
+    }
+
+    @Test
+    public void testOverlappingMultiLocksDoNotDeadlock() throws Exception {
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            uuids.add(UUID.randomUUID());
+        List<UUID> reversed = new ArrayList<>(uuids);
+        Collections.reverse(reversed);
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<UUID> order = i % 2 == 0 ? uuids : reversed;
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 20; j++) {
+                    Lock writeLocks = lockingService.getWriteLocks(TestData.class, order);
+                    writeLocks.lock();
+                    writeLocks.unlock();
+                }
+            }));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+    }
+}
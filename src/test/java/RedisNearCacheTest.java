@@ -0,0 +1,118 @@
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import de.verdox.vpipeline.api.NetworkParticipant;
+import de.verdox.vpipeline.api.VNetwork;
+import de.verdox.vpipeline.api.pipeline.parts.GlobalCache;
+import de.verdox.vpipeline.api.pipeline.parts.NetworkDataLockingService;
+import de.verdox.vpipeline.impl.util.RedisConnection;
+import model.data.OnlyCacheData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import redis.embedded.RedisServer;
+
+import java.util.UUID;
+
+public class RedisNearCacheTest {
+    private static RedisServer redisServer = null;
+    private static GlobalCache writer;
+    private static GlobalCache reader;
+    private static GlobalCache plainWriter;
+
+    @BeforeAll
+    public static void setup() {
+        if (redisServer == null) {
+            redisServer = RedisServer.builder()
+                    .port(6379)
+                    .setting("bind 127.0.0.1") // secure + prevents popups on Windows
+                    .setting("maxmemory 128M")
+                    .setting("timeout 100000")
+                    .build();
+            redisServer.start();
+        }
+        writer = createParticipant("nearCacheWriter", 100).pipeline().getGlobalCache();
+        reader = createParticipant("nearCacheReader", 100).pipeline().getGlobalCache();
+        plainWriter = createParticipant("plainWriter", 0).pipeline().getGlobalCache();
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        if (redisServer != null) {
+            redisServer.stop();
+            redisServer = null;
+        }
+    }
+
+    private static NetworkParticipant createParticipant(String name, int nearCacheSize) {
+        NetworkParticipant networkParticipant = VNetwork
+                .getConstructionService()
+                .createNetworkParticipant()
+                .withName(name)
+                .withPipeline(pipelineBuilder -> pipelineBuilder
+                        .withNetworkDataLockingService(NetworkDataLockingService.createDummy())
+                        .withGlobalCache(GlobalCache.createRedisCache(new RedisConnection(false, new String[]{"redis://127.0.0.1:6379"}, ""), nearCacheSize))
+                ).build();
+        networkParticipant.pipeline().getDataRegistry().registerType(OnlyCacheData.class);
+        networkParticipant.connect();
+        return networkParticipant;
+    }
+
+    @Test
+    public void testCachedValuesAreCopies() {
+        UUID uuid = UUID.randomUUID();
+        writer.save(OnlyCacheData.class, uuid, value(1));
+
+        JsonElement loaded = reader.loadData(OnlyCacheData.class, uuid);
+        loaded.getAsJsonObject().addProperty("value", 5);
+        Assertions.assertEquals(1, reader.loadData(OnlyCacheData.class, uuid).getAsJsonObject().get("value").getAsInt());
+    }
+
+    @Test
+    public void testRemoteWritesInvalidateCachedValues() throws InterruptedException {
+        UUID uuid = UUID.randomUUID();
+        writer.save(OnlyCacheData.class, uuid, value(1));
+        Assertions.assertEquals(1, reader.loadData(OnlyCacheData.class, uuid).getAsJsonObject().get("value").getAsInt());
+
+        writer.save(OnlyCacheData.class, uuid, value(2));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (reader.loadData(OnlyCacheData.class, uuid).getAsJsonObject().get("value").getAsInt() != 2) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "near cache was not invalidated");
+            Thread.sleep(10);
+        }
+
+        writer.remove(OnlyCacheData.class, uuid);
+        deadline = System.currentTimeMillis() + 2000;
+        while (reader.dataExist(OnlyCacheData.class, uuid)) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "near cache was not invalidated");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testWritesWithoutNearCacheInvalidateCachedValues() throws InterruptedException {
+        UUID uuid = UUID.randomUUID();
+        plainWriter.save(OnlyCacheData.class, uuid, value(1));
+        Assertions.assertEquals(1, reader.loadData(OnlyCacheData.class, uuid).getAsJsonObject().get("value").getAsInt());
+
+        plainWriter.save(OnlyCacheData.class, uuid, value(2));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (reader.loadData(OnlyCacheData.class, uuid).getAsJsonObject().get("value").getAsInt() != 2) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "near cache was not invalidated");
+            Thread.sleep(10);
+        }
+
+        plainWriter.remove(OnlyCacheData.class, uuid);
+        deadline = System.currentTimeMillis() + 2000;
+        while (reader.dataExist(OnlyCacheData.class, uuid)) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "near cache was not invalidated");
+            Thread.sleep(10);
+        }
+    }
+
+    private static JsonObject value(int value) {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("value", value);
+        return jsonObject;
+    }
+}
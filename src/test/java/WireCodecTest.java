@@ -0,0 +1,154 @@
+import de.verdox.vpipeline.api.NetworkLogger;
+import de.verdox.vpipeline.api.pipeline.core.PipelineMetrics;
+import de.verdox.vpipeline.api.pipeline.datatypes.DataSynchronizer;
+import de.verdox.vpipeline.api.pipeline.parts.synchronizer.data.DataBlockCodec;
+import de.verdox.vpipeline.api.util.PayloadCompression;
+import de.verdox.vpipeline.api.util.WireFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class WireCodecTest {
+    private final DataBlockCodec codec = new DataBlockCodec();
+
+    @AfterEach
+    public void resetWireFormat() {
+        System.clearProperty(WireFormat.VERSION_PROPERTY);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() {
+        UUID sender = UUID.randomUUID();
+        UUID data = UUID.randomUUID();
+
+        var update = (DataSynchronizer.UpdateDataBlock) codec.decode(codec.encode(new DataSynchronizer.UpdateDataBlock(sender, data, "{\"a\":1}", 300)));
+        Assertions.assertEquals(sender, update.getSenderUUID());
+        Assertions.assertEquals(data, update.getDataUUID());
+        Assertions.assertEquals("{\"a\":1}", update.getDataToUpdate());
+        Assertions.assertEquals(300, update.getVersion());
+
+        var patch = (DataSynchronizer.PatchDataBlock) codec.decode(codec.encode(new DataSynchronizer.PatchDataBlock(sender, data, 4, 5, "[]")));
+        Assertions.assertEquals(4, patch.getBaseVersion());
+        Assertions.assertEquals(5, patch.getVersion());
+        Assertions.assertEquals("[]", patch.getPatch());
+
+        Assertions.assertInstanceOf(DataSynchronizer.RemoveDataBlock.class, codec.decode(codec.encode(new DataSynchronizer.RemoveDataBlock(sender, data))));
+    }
+
+    @Test
+    public void testBatchRoundTrip() {
+        UUID sender = UUID.randomUUID();
+        UUID data = UUID.randomUUID();
+        List<DataSynchronizer.DataBlock> batch = codec.decodeAll(codec.encodeBatch(List.of(
+                new DataSynchronizer.CreationDataBlock(sender, data, "{\"a\":1}"),
+                new DataSynchronizer.UpdateDataBlock(sender, data, "{\"a\":2}", 2),
+                new DataSynchronizer.RemoveDataBlock(sender, data))));
+
+        Assertions.assertEquals(3, batch.size());
+        Assertions.assertInstanceOf(DataSynchronizer.CreationDataBlock.class, batch.get(0));
+        Assertions.assertEquals(2, ((DataSynchronizer.UpdateDataBlock) batch.get(1)).getVersion());
+        Assertions.assertInstanceOf(DataSynchronizer.RemoveDataBlock.class, batch.get(2));
+        // Single data blocks are read as a batch of one
+        Assertions.assertEquals(1, codec.decodeAll(codec.encode(new DataSynchronizer.RemoveDataBlock(sender, data))).size());
+    }
+
+    @Test
+    public void testLegacyMessagesAreStillDecoded() {
+        UUID sender = UUID.randomUUID();
+        UUID data = UUID.randomUUID();
+        System.setProperty(WireFormat.VERSION_PROPERTY, String.valueOf(WireFormat.LEGACY_JSON));
+        byte[] legacy = codec.encode(new DataSynchronizer.CreationDataBlock(sender, data, "{\"a\":1}"));
+        System.clearProperty(WireFormat.VERSION_PROPERTY);
+
+        var creation = (DataSynchronizer.CreationDataBlock) codec.decode(legacy);
+        Assertions.assertEquals(data, creation.getDataUUID());
+        Assertions.assertEquals("{\"a\":1}", creation.getDataToUpdate());
+    }
+
+    @Test
+    public void testLegacyUpdatesAreSentWithoutVersion() {
+        System.setProperty(WireFormat.VERSION_PROPERTY, String.valueOf(WireFormat.LEGACY_JSON));
+        byte[] legacy = codec.encode(new DataSynchronizer.UpdateDataBlock(UUID.randomUUID(), UUID.randomUUID(), "{\"a\":1}", 7));
+        System.clearProperty(WireFormat.VERSION_PROPERTY);
+
+        var update = (DataSynchronizer.UpdateDataBlock) codec.decode(legacy);
+        Assertions.assertEquals("{\"a\":1}", update.getDataToUpdate());
+        Assertions.assertEquals(0, update.getVersion());
+    }
+
+    @Test
+    public void testLegacyFormatRejectsPatches() {
+        System.setProperty(WireFormat.VERSION_PROPERTY, String.valueOf(WireFormat.LEGACY_JSON));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> codec.encode(new DataSynchronizer.PatchDataBlock(UUID.randomUUID(), UUID.randomUUID(), 1, 2, "[]")));
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanLegacy() {
+        var block = new DataSynchronizer.UpdateDataBlock(UUID.randomUUID(), UUID.randomUUID(), "{\"testInt\":5,\"testString\":\"value\"}", 1);
+        byte[] binary = codec.encode(block);
+        System.setProperty(WireFormat.VERSION_PROPERTY, String.valueOf(WireFormat.LEGACY_JSON));
+        byte[] legacy = codec.encode(block);
+        Assertions.assertTrue(binary.length < legacy.length, "binary " + binary.length + " bytes, legacy " + legacy.length + " bytes");
+    }
+
+    /**
+     * Encodes and decodes the same data blocks in both formats and compares the bytes on the wire and the time spent.
+     */
+    @Test
+    public void testBinaryComparedToLegacy() {
+        List<DataSynchronizer.DataBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            blocks.add(new DataSynchronizer.UpdateDataBlock(UUID.randomUUID(), UUID.randomUUID(), "{\"testInt\":" + i + ",\"testString\":\"value\"}", i + 1));
+
+        System.setProperty(WireFormat.VERSION_PROPERTY, String.valueOf(WireFormat.LEGACY_JSON));
+        measure(blocks);
+        long[] legacy = measure(blocks);
+        System.clearProperty(WireFormat.VERSION_PROPERTY);
+        measure(blocks);
+        long[] binary = measure(blocks);
+
+        NetworkLogger.info("Legacy: " + legacy[0] + " bytes in " + TimeUnit.NANOSECONDS.toMillis(legacy[1]) + " ms, binary: " + binary[0] + " bytes in " + TimeUnit.NANOSECONDS.toMillis(binary[1]) + " ms");
+        Assertions.assertTrue(binary[0] < legacy[0], "binary " + binary[0] + " bytes, legacy " + legacy[0] + " bytes");
+    }
+
+    /**
+     * @return the encoded bytes and the nanoseconds spent encoding and decoding the blocks
+     */
+    private long[] measure(List<DataSynchronizer.DataBlock> blocks) {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (DataSynchronizer.DataBlock block : blocks) {
+            byte[] encoded = codec.encode(block);
+            bytes += encoded.length;
+            Assertions.assertEquals(block.getDataUUID(), codec.decode(encoded).getDataUUID());
+        }
+        return new long[]{bytes, System.nanoTime() - start};
+    }
+
+    @Test
+    public void testLargePayloadsAreCompressed() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        byte[] payload = "{\"testString\":\"value\"}".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = PayloadCompression.compress(payload, metrics);
+        Assertions.assertTrue(PayloadCompression.isCompressed(compressed));
+        Assertions.assertTrue(compressed.length < payload.length);
+        Assertions.assertArrayEquals(payload, PayloadCompression.decompress(compressed));
+        Assertions.assertEquals(1, metrics.getCompressedPayloads());
+        Assertions.assertTrue(metrics.getCompressionRatio() < 1);
+    }
+
+    @Test
+    public void testSmallPayloadsStayUncompressed() {
+        byte[] payload = "{\"testInt\":5}".getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = PayloadCompression.compress(payload, null);
+        Assertions.assertArrayEquals(payload, encoded);
+        Assertions.assertArrayEquals(payload, PayloadCompression.decompress(encoded));
+    }
+}
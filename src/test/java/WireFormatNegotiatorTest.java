@@ -0,0 +1,92 @@
+import de.verdox.vpipeline.api.util.WireFormat;
+import de.verdox.vpipeline.impl.util.RedisConnection;
+import de.verdox.vpipeline.impl.util.WireFormatNegotiator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.client.codec.StringCodec;
+import redis.embedded.RedisServer;
+
+import java.util.UUID;
+
+public class WireFormatNegotiatorTest {
+    private static RedisServer redisServer = null;
+    private static RedisConnection redisConnection;
+    private static RScoredSortedSet<String> advertisements;
+
+    @BeforeAll
+    public static void setup() {
+        if (redisServer == null) {
+            redisServer = RedisServer.builder()
+                    .port(6383)
+                    .setting("bind 127.0.0.1") // secure + prevents popups on Windows
+                    .setting("maxmemory 128M")
+                    .build();
+            redisServer.start();
+        }
+        redisConnection = new RedisConnection(false, new String[]{"redis://127.0.0.1:6383"}, "");
+        redisConnection.connect();
+        advertisements = redisConnection.getRedissonClient().getScoredSortedSet(WireFormatNegotiator.ADVERTISEMENT_KEY, StringCodec.INSTANCE);
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        redisConnection.disconnect();
+        if (redisServer != null) {
+            redisServer.stop();
+            redisServer = null;
+        }
+    }
+
+    @AfterEach
+    public void clearAdvertisements() {
+        advertisements.delete();
+    }
+
+    @Test
+    public void testOldNodesLowerTheOutgoingVersion() {
+        String oldNode = UUID.randomUUID() + ":" + WireFormat.LEGACY_JSON;
+        advertisements.add(System.currentTimeMillis() + 30_000, oldNode);
+
+        WireFormatNegotiator negotiator = new WireFormatNegotiator(redisConnection.getRedissonClient());
+        negotiator.start();
+        try {
+            Assertions.assertEquals(WireFormat.LEGACY_JSON, WireFormat.outgoingVersion());
+            Assertions.assertEquals(2, advertisements.size());
+        } finally {
+            negotiator.stop();
+        }
+        Assertions.assertEquals(WireFormat.CURRENT_VERSION, WireFormat.outgoingVersion());
+        Assertions.assertEquals(1, advertisements.size());
+    }
+
+    @Test
+    public void testExpiredAdvertisementsAreIgnored() {
+        advertisements.add(System.currentTimeMillis() - 1, UUID.randomUUID() + ":" + WireFormat.LEGACY_JSON);
+
+        WireFormatNegotiator negotiator = new WireFormatNegotiator(redisConnection.getRedissonClient());
+        negotiator.start();
+        try {
+            Assertions.assertEquals(WireFormat.CURRENT_VERSION, WireFormat.outgoingVersion());
+            Assertions.assertEquals(1, advertisements.size());
+        } finally {
+            negotiator.stop();
+        }
+    }
+
+    @Test
+    public void testConfiguredVersionIsAnUpperBound() {
+        WireFormatNegotiator negotiator = new WireFormatNegotiator(redisConnection.getRedissonClient());
+        negotiator.start();
+        System.setProperty(WireFormat.VERSION_PROPERTY, String.valueOf(WireFormat.LEGACY_JSON));
+        try {
+            Assertions.assertEquals(WireFormat.LEGACY_JSON, WireFormat.outgoingVersion());
+        } finally {
+            System.clearProperty(WireFormat.VERSION_PROPERTY);
+            negotiator.stop();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package model.data;
+
+import de.verdox.vpipeline.api.pipeline.annotations.DataStorageIdentifier;
+import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.PipelineData;
+import de.verdox.vpipeline.api.pipeline.enums.DataContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@DataStorageIdentifier(identifier = "model.data.CleanOnNoUseData")
+@PipelineDataProperties(dataContext = DataContext.CACHE_ONLY, cleanOnNoUse = true, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+public class CleanOnNoUseData extends PipelineData {
+    public CleanOnNoUseData(@NotNull Pipeline pipeline, @NotNull UUID objectUUID) {
+        super(pipeline, objectUUID);
+    }
+}
@@ -0,0 +1,20 @@
+package model.data;
+
+import de.verdox.vpipeline.api.pipeline.annotations.DataStorageIdentifier;
+import de.verdox.vpipeline.api.pipeline.annotations.PipelineDataProperties;
+import de.verdox.vpipeline.api.pipeline.core.Pipeline;
+import de.verdox.vpipeline.api.pipeline.datatypes.PipelineData;
+import de.verdox.vpipeline.api.pipeline.enums.DataContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+@DataStorageIdentifier(identifier = "model.data.WriteBehindData")
+@PipelineDataProperties(dataContext = DataContext.STORAGE_ONLY, writeBehind = true, writeBehindMillis = 200)
+public class WriteBehindData extends PipelineData {
+    public int counter;
+
+    public WriteBehindData(@NotNull Pipeline pipeline, @NotNull UUID objectUUID) {
+        super(pipeline, objectUUID);
+    }
+}